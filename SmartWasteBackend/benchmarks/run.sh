@@ -0,0 +1,13 @@
+#!/usr/bin/env sh
+# Build the backend and the benchmarks, then run them. Arguments go to JMH, e.g.
+#   benchmarks/run.sh                      all benchmarks
+#   benchmarks/run.sh JwtServiceBenchmark -prof gc
+# Results are also written to benchmarks/results/<timestamp>.json.
+set -e
+cd "$(dirname "$0")/.."
+
+./mvnw -q install -DskipTests
+./mvnw -q -f benchmarks/pom.xml package
+
+mkdir -p benchmarks/results
+java -jar benchmarks/target/benchmarks.jar -rf json -rff "benchmarks/results/$(date +%Y%m%d-%H%M%S).json" "$@"
@@ -0,0 +1,100 @@
+package com.smart_wastebackend.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.smart_wastebackend.enums.BinStatusEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing {@link ApiResponse} bodies to JSON with a mapper configured like Spring Boot's: a bin
+ * list as returned by {@code GET /api/bins} and a notification page. Run with {@code -prof gc} to
+ * see the allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseBenchmark {
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<BinInventoryResponseDTO>> bins;
+    private ApiResponse<List<NotificationDTO>> notifications;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        List<BinInventoryResponseDTO> binList = new ArrayList<>(items);
+        List<NotificationDTO> notificationList = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            BinInventoryResponseDTO bin = new BinInventoryResponseDTO();
+            bin.setBinId("BIN-" + i);
+            bin.setStatus(BinStatusEnum.ASSIGNED);
+            bin.setAssignedDate(LocalDate.now().minusDays(i % 365));
+            bin.setLatitude(6.9 + i * 1e-4);
+            bin.setLongitude(79.8 + i * 1e-4);
+            binList.add(bin);
+
+            notificationList.add(NotificationDTO.builder()
+                    .id(Integer.toHexString(0x6650f000 + i))
+                    .type("FILL_LEVEL_HIGH")
+                    .title("Bin Almost Full")
+                    .message("Your bin BIN-" + i + " is 93% full and needs collection")
+                    .isRead(i % 3 == 0)
+                    .priority("HIGH")
+                    .recipientType("ROLE_BIN_OWNER")
+                    .createdAt(LocalDateTime.now().minusMinutes(i))
+                    .binId("BIN-" + i)
+                    .metadata(Map.of("fill_level", 93, "threshold", 90))
+                    .build());
+        }
+
+        bins = response(binList);
+        notifications = response(notificationList);
+    }
+
+    @Benchmark
+    public byte[] binList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bins);
+    }
+
+    @Benchmark
+    public byte[] notificationList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(notifications);
+    }
+
+    private static <T> ApiResponse<T> response(T data) {
+        return ApiResponse.<T>builder()
+                .success(true)
+                .message("Fetched successfully")
+                .data(data)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+}
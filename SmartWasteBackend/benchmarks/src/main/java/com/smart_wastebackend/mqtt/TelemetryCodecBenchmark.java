@@ -0,0 +1,66 @@
+package com.smart_wastebackend.mqtt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smart_wastebackend.dto.BinStatusDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse cost of one status payload: the previous String + JSON path, JSON straight from bytes,
+ * and the binary v1 format. Run with {@code -prof gc} to compare allocation per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TelemetryCodecBenchmark {
+
+    private ObjectMapper objectMapper;
+    private BinTelemetryCodec codec;
+    private byte[] jsonPayload;
+    private byte[] binaryPayload;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        codec = new BinTelemetryCodec(objectMapper);
+
+        BinStatusDTO status = new BinStatusDTO();
+        status.setPlasticLevel(42L);
+        status.setPaperLevel(87L);
+        status.setGlassLevel(13L);
+
+        jsonPayload = "{\"plasticLevel\":42,\"paperLevel\":87,\"glassLevel\":13}".getBytes(StandardCharsets.UTF_8);
+        binaryPayload = BinTelemetryCodec.encodeStatus(status);
+    }
+
+    @Benchmark
+    public BinStatusDTO jsonViaString() throws IOException {
+        String payload = new String(jsonPayload, StandardCharsets.UTF_8);
+        return objectMapper.readValue(payload, BinStatusDTO.class);
+    }
+
+    @Benchmark
+    public BinStatusDTO jsonFromBytes() throws IOException {
+        return codec.decodeStatus(jsonPayload);
+    }
+
+    @Benchmark
+    public BinStatusDTO binary() throws IOException {
+        return codec.decodeStatus(binaryPayload);
+    }
+}
@@ -0,0 +1,83 @@
+package com.smart_wastebackend.mqtt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing one inbound topic: the previous per-message regex + split against the compiled trie.
+ * Half of the topics are status reports and half location reports, as on the real broker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicRoutingBenchmark {
+
+    private static final String STATUS_TOPIC = "smartwaste/bin/+/status";
+    private static final String LOCATION_TOPIC = "smartwaste/bin/+/location";
+
+    private String[] topics;
+    private MqttTopicRouter router;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        topics = new String[1024];
+        for (int i = 0; i < topics.length; i++) {
+            topics[i] = "smartwaste/bin/BIN-" + (10000 + i) + (i % 2 == 0 ? "/status" : "/location");
+        }
+        router = new MqttTopicRouter(List.of(
+                new NoOpHandler("smartwaste/bin/{binId}/status"),
+                new NoOpHandler("smartwaste/bin/{binId}/location")
+        ));
+    }
+
+    @Benchmark
+    public void regexMatchAndSplit(Blackhole blackhole) {
+        String topic = nextTopic();
+        if (topic.matches(STATUS_TOPIC.replace("+", "[^/]+"))) {
+            blackhole.consume(topic.split("/")[2]);
+        } else if (topic.matches(LOCATION_TOPIC.replace("+", "[^/]+"))) {
+            blackhole.consume(topic.split("/")[2]);
+        }
+    }
+
+    @Benchmark
+    public void trieRouter(Blackhole blackhole) {
+        MqttTopicMatch match = router.match(nextTopic());
+        blackhole.consume(match.handler());
+        blackhole.consume(match.variable("binId"));
+    }
+
+    private String nextTopic() {
+        String topic = topics[next];
+        next = (next + 1) & (topics.length - 1);
+        return topic;
+    }
+
+    private record NoOpHandler(String topicPattern) implements MqttTopicHandler {
+
+        @Override
+        public String topicType() {
+            return "benchmark";
+        }
+
+        @Override
+        public void handle(MqttTopicMatch match, byte[] payload) {
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.smart_wastebackend.service;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-ins for Spring Data repositories, so services can be benchmarked without Mongo.
+ * Only {@code findById}, {@code existsById}, {@code findAll}, {@code count} and {@code save} are
+ * implemented; any other call fails loudly so a benchmark never measures a silent no-op.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <R, T> R fake(Class<R> repositoryType, Map<String, T> rows, Function<T, String> idOf) {
+        return (R) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(rows.get((String) args[0]));
+                    case "existsById" -> rows.containsKey((String) args[0]);
+                    case "findAll" -> new ArrayList<>(rows.values());
+                    case "count" -> (long) rows.size();
+                    case "save" -> {
+                        T entity = (T) args[0];
+                        rows.put(idOf.apply(entity), entity);
+                        yield entity;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemory" + repositoryType.getSimpleName();
+                    default -> throw new UnsupportedOperationException(
+                            repositoryType.getSimpleName() + "." + method.getName() + " is not faked");
+                });
+    }
+}
@@ -0,0 +1,59 @@
+package com.smart_wastebackend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token checks done by the JWT filter on every authenticated request: reading the subject, and
+ * the full validity check (which currently parses the token twice).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    // Same shape as jwt.secret: base64 of a 256-bit key
+    private static final String SECRET = "YmFkYjlmNTM5MjliNzk1Y2RiY2MwYjhkYjY3YjIzMzUyMDU5NmM2ZTU4NGRjYjVjZDE5YjYxN2E4YjNjMGE2ZA==";
+
+    private JwtService jwtService;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        Field secret = ReflectionUtils.findField(JwtService.class, "SECRET_KEY");
+        ReflectionUtils.makeAccessible(secret);
+        ReflectionUtils.setField(secret, jwtService, SECRET);
+
+        user = User.withUsername("owner@example.com").password("unused").roles("BIN_OWNER").build();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+}
@@ -0,0 +1,58 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.dto.NotificationDTO;
+import com.smart_wastebackend.enums.NotificationType;
+import com.smart_wastebackend.enums.Priority;
+import com.smart_wastebackend.enums.UserRoleEnum;
+import com.smart_wastebackend.model.Notification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Entity to DTO mapping run for every notification listed or pushed over the socket. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationServiceBenchmark {
+
+    private NotificationService notificationService;
+    private Notification notification;
+
+    @Setup
+    public void setUp() {
+        // convertToDTO touches no collaborator
+        notificationService = new NotificationService(null, null, null, null, null, null, null);
+        notification = Notification.builder()
+                .id("6650f0c2a1b2c3d4e5f60718")
+                .notificationType(NotificationType.FILL_LEVEL_HIGH)
+                .title("Bin Almost Full")
+                .message("Your bin BIN-042 is 93% full and needs collection")
+                .recipientType(UserRoleEnum.ROLE_BIN_OWNER)
+                .recipientId("owner-7")
+                .binId("BIN-042")
+                .priority(Priority.HIGH)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusDays(7))
+                .metadata(Map.of("fill_level", 93, "threshold", 90, "alert_type", "HIGH_FILL_LEVEL"))
+                .build();
+    }
+
+    @Benchmark
+    public NotificationDTO convertToDTO() {
+        return notificationService.convertToDTO(notification);
+    }
+}
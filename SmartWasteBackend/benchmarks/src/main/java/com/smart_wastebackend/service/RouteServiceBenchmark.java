@@ -0,0 +1,111 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.enums.BinStatusEnum;
+import com.smart_wastebackend.model.BinInventory;
+import com.smart_wastebackend.model.CollectorProfile;
+import com.smart_wastebackend.model.Route;
+import com.smart_wastebackend.model.embedded.RouteStop;
+import com.smart_wastebackend.mqtt.IngestNode;
+import com.smart_wastebackend.repository.BinInventoryRepository;
+import com.smart_wastebackend.repository.CollectorProfileRepository;
+import com.smart_wastebackend.repository.RouteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the stops of a route from bin ids, as done on route create and update. Bin state comes
+ * from a {@link BinStateStore} over an in-memory inventory: {@code warm} has every bin loaded, as
+ * after startup; {@code cold} evicts the route's bins first, so every stop reads through to the
+ * repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteServiceBenchmark {
+
+    private static final int FLEET_SIZE = 10_000;
+
+    @Param({"20", "200"})
+    public int stops;
+
+    private RouteService warmRoutes;
+    private RouteService coldRoutes;
+    private BinStateStore coldStore;
+    private List<String> binIds;
+
+    @Setup
+    public void setUp() {
+        Map<String, BinInventory> bins = new HashMap<>();
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            BinInventory bin = new BinInventory();
+            bin.setBinId("BIN-" + i);
+            bin.setStatus(BinStatusEnum.ASSIGNED);
+            bin.setOwnerId("owner-" + (i % 500));
+            bin.setLatitude(6.9 + i * 1e-5);
+            bin.setLongitude(79.8 + i * 1e-5);
+            bin.setPlasticLevel((long) (i % 100));
+            bin.setPaperLevel((long) (i * 7 % 100));
+            bin.setGlassLevel((long) (i * 13 % 100));
+            bins.put(bin.getBinId(), bin);
+        }
+        BinInventoryRepository inventory = InMemoryRepositories.fake(BinInventoryRepository.class, bins, BinInventory::getBinId);
+
+        BinStateStore warmStore = new BinStateStore(null, inventory, singleNode(), new SimpleMeterRegistry(), 5000, 5000);
+        bins.values().forEach(warmStore::put);
+        warmRoutes = newRouteService(warmStore);
+
+        coldStore = new BinStateStore(null, inventory, singleNode(), new SimpleMeterRegistry(), 5000, 5000);
+        coldRoutes = newRouteService(coldStore);
+
+        binIds = new ArrayList<>(stops);
+        for (int i = 0; i < stops; i++) {
+            binIds.add("BIN-" + (i * 37 % FLEET_SIZE));
+        }
+    }
+
+    @Benchmark
+    public List<RouteStop> warm() {
+        return warmRoutes.buildRouteStops(binIds);
+    }
+
+    @Benchmark
+    public List<RouteStop> cold() {
+        binIds.forEach(coldStore::remove);
+        return coldRoutes.buildRouteStops(binIds);
+    }
+
+    private static RouteService newRouteService(BinStateStore store) {
+        return new RouteService(
+                InMemoryRepositories.fake(RouteRepository.class, new HashMap<>(), Route::getId),
+                InMemoryRepositories.fake(CollectorProfileRepository.class, new HashMap<>(), CollectorProfile::getId),
+                null,
+                null,
+                store,
+                null,
+                null
+        );
+    }
+
+    private static IngestNode singleNode() {
+        return new IngestNode(new SimpleMeterRegistry(), "benchmark", 1, "");
+    }
+}
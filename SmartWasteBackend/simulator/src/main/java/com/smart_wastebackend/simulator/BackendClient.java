@@ -0,0 +1,142 @@
+package com.smart_wastebackend.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The HTTP side of a run: logs in as an admin, registers the simulated bins and reads the
+ * backend's ingest metrics from {@code /actuator/metrics} on the management port. With several
+ * backend nodes the metrics of all their management ports are added up.
+ */
+final class BackendClient {
+
+    /** Cumulative ingest metrics at one instant; deltas between two samples describe a step. */
+    record Sample(long atNanos, double processed, double superseded, double overflow,
+                  double lagCount, double lagSeconds, double queueDepth, double[] processedByNode) {
+    }
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final List<String> managementUrls;
+    private String token;
+
+    BackendClient(String baseUrl, String managementUrl, String token, ObjectMapper objectMapper) {
+        this.baseUrl = trimSlash(baseUrl);
+        this.managementUrls = Arrays.stream(managementUrl.split(",")).map(String::trim).map(BackendClient::trimSlash).toList();
+        this.token = token;
+        this.objectMapper = objectMapper;
+    }
+
+    boolean isAuthenticated() {
+        return token != null;
+    }
+
+    void login(String username, String password) throws IOException, InterruptedException {
+        JsonNode body = send(post("/api/auth/authenticate", Map.of("username", username, "password", password)));
+        token = body.path("data").path("token").asText(null);
+        if (token == null) {
+            throw new IOException("Login as " + username + " returned no token");
+        }
+    }
+
+    /** Add the bin to the inventory; returns false if it already existed. */
+    boolean registerBin(String binId) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(post("/api/bins/add", Map.of("binId", binId)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 == 2) {
+            return true;
+        }
+        if (response.statusCode() == 401 || response.statusCode() == 403) {
+            throw new IOException("Not allowed to register bins (HTTP " + response.statusCode() + "), log in as an admin");
+        }
+        return false;
+    }
+
+    List<String> managementUrls() {
+        return managementUrls;
+    }
+
+    Sample sample() throws IOException, InterruptedException {
+        double[] processedByNode = new double[managementUrls.size()];
+        double superseded = 0;
+        double overflow = 0;
+        double lagCount = 0;
+        double lagSeconds = 0;
+        double queueDepth = 0;
+        for (int i = 0; i < processedByNode.length; i++) {
+            String url = managementUrls.get(i);
+            JsonNode lag = metric(url, "smartwaste.ingest.lane.lag", null);
+            processedByNode[i] = statistic(metric(url, "smartwaste.ingest.latency", null), "COUNT");
+            superseded += statistic(metric(url, "smartwaste.ingest.lane.dropped", "reason:superseded"), "COUNT");
+            overflow += statistic(metric(url, "smartwaste.ingest.lane.dropped", "reason:overflow"), "COUNT");
+            lagCount += statistic(lag, "COUNT");
+            lagSeconds += statistic(lag, "TOTAL_TIME");
+            queueDepth += statistic(metric(url, "smartwaste.ingest.lane.queue.depth", null), "VALUE");
+        }
+        return new Sample(System.nanoTime(), Arrays.stream(processedByNode).sum(), superseded, overflow,
+                lagCount, lagSeconds, queueDepth, processedByNode);
+    }
+
+    private JsonNode metric(String managementUrl, String name, String tag) throws IOException, InterruptedException {
+        String path = "/actuator/metrics/" + name
+                + (tag != null ? "?tag=" + URLEncoder.encode(tag, StandardCharsets.UTF_8) : "");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(managementUrl + path)).GET().build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            // Meter not registered yet, e.g. no message has been processed
+            return objectMapper.createObjectNode();
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("GET " + managementUrl + path + " failed with HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static double statistic(JsonNode metric, String statistic) {
+        for (JsonNode measurement : metric.path("measurements")) {
+            if (statistic.equals(measurement.path("statistic").asText())) {
+                return measurement.path("value").asDouble();
+            }
+        }
+        return 0;
+    }
+
+    private HttpRequest post(String path, Object body) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        authorize(request);
+        return request.build();
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(request.method() + " " + request.uri().getPath() + " failed with HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static String trimSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private void authorize(HttpRequest.Builder request) {
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+    }
+}
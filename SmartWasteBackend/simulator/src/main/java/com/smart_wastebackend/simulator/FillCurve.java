@@ -0,0 +1,39 @@
+package com.smart_wastebackend.simulator;
+
+import java.util.Random;
+
+/** How a virtual bin's levels grow over (simulated) time. */
+enum FillCurve {
+
+    /** Constant rate around the clock. */
+    LINEAR,
+
+    /** Busy during the day, nearly idle at night, peaking early afternoon. */
+    DAILY,
+
+    /** Slow steady growth plus occasional bulk dumps of 10 to 25 points. */
+    BURSTY,
+
+    /** Each bin picks one of the curves above at random. */
+    MIXED,
+    ;
+
+    private static final double BURST_PROBABILITY_PER_HOUR = 0.05;
+
+    FillCurve pick(Random random) {
+        if (this != MIXED) {
+            return this;
+        }
+        return values()[random.nextInt(MIXED.ordinal())];
+    }
+
+    /** Points gained over {@code hours} starting at {@code hourOfDay}, for a base rate in points per hour. */
+    double growth(double baseRate, double hourOfDay, double hours, Random random) {
+        return switch (this) {
+            case DAILY -> baseRate * hours * Math.max(0, 1 + 0.9 * Math.sin(2 * Math.PI * (hourOfDay - 8) / 24));
+            case BURSTY -> baseRate * hours * 0.5
+                    + (random.nextDouble() < BURST_PROBABILITY_PER_HOUR * hours ? 10 + random.nextInt(16) : 0);
+            default -> baseRate * hours;
+        };
+    }
+}
@@ -0,0 +1,295 @@
+package com.smart_wastebackend.simulator;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smart_wastebackend.dto.BinLocationDTO;
+import com.smart_wastebackend.dto.BinStatusDTO;
+import com.smart_wastebackend.mqtt.BinTelemetryCodec;
+import com.smart_wastebackend.mqtt.IngestNode;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the backend end to end with a fleet of {@link VirtualBin}s publishing to a real broker
+ * on the same topics and payloads as the firmware.
+ * <p>
+ * The run starts at the rate where every bin reports once per {@code report-interval} and raises
+ * it by {@code ramp-step} msg/s every {@code step-seconds}. After each step the backend's ingest
+ * metrics are read from the actuator; a step is sustained when nothing overflowed, the lanes
+ * kept up with what was published, the mean lane lag stayed under {@code max-lag-ms} and the
+ * queues ended below {@code max-queue-depth}. The first step that is not sustained ends the run,
+ * and the last sustained rate is reported. With {@code --ramp-step=0} the initial rate is held
+ * until the process is stopped.
+ */
+public final class FleetSimulator {
+
+    private static final double TOLERANCE = 0.95;
+
+    private final SimulatorOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private final Random random;
+    private final List<VirtualBin> fleet;
+    private final MqttAsyncClient[] clients;
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong failed = new AtomicLong();
+    private final IMqttActionListener failureCounter = new IMqttActionListener() {
+        @Override
+        public void onSuccess(IMqttToken token) {
+        }
+
+        @Override
+        public void onFailure(IMqttToken token, Throwable exception) {
+            failed.incrementAndGet();
+        }
+    };
+    private long published;
+    private long throttled;
+    private int cursor;
+
+    private FleetSimulator(SimulatorOptions options) {
+        this.options = options;
+        this.random = new Random(options.seed);
+        this.fleet = new ArrayList<>(options.bins);
+        for (int i = 0; i < options.bins; i++) {
+            fleet.add(new VirtualBin(options.binId(i), options, random, startedAt));
+        }
+        this.clients = new MqttAsyncClient[options.connections];
+    }
+
+    public static void main(String[] args) throws Exception {
+        new FleetSimulator(SimulatorOptions.parse(args)).run();
+    }
+
+    private void run() throws Exception {
+        BackendClient backend = new BackendClient(options.backend, options.management, options.token, objectMapper);
+        if (options.username != null) {
+            backend.login(options.username, options.password);
+        }
+        if (options.register) {
+            register(backend);
+        }
+
+        connect();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::disconnect, "simulator-shutdown"));
+        try {
+            ramp(backend);
+        } finally {
+            disconnect();
+        }
+    }
+
+    private void register(BackendClient backend) throws IOException, InterruptedException {
+        int added = 0;
+        for (VirtualBin bin : fleet) {
+            if (backend.registerBin(bin.binId())) {
+                added++;
+            }
+        }
+        System.out.printf("Registered %d new bins (%d already existed)%n", added, fleet.size() - added);
+    }
+
+    private void connect() throws MqttException {
+        MqttConnectOptions connectOptions = new MqttConnectOptions();
+        connectOptions.setCleanSession(true);
+        connectOptions.setAutomaticReconnect(true);
+        connectOptions.setMaxInflight(options.maxInflight);
+
+        String runId = Long.toString(startedAt, 36);
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = new MqttAsyncClient(options.broker, "smartwaste_sim_" + runId + "_" + i, new MemoryPersistence());
+            clients[i].connect(connectOptions).waitForCompletion(TimeUnit.SECONDS.toMillis(10));
+        }
+        System.out.printf("Connected %d clients to %s for %d bins (%s payloads, QoS %d)%n",
+                clients.length, options.broker, fleet.size(), options.format, options.qos);
+    }
+
+    private void disconnect() {
+        for (MqttAsyncClient client : clients) {
+            try {
+                if (client != null && client.isConnected()) {
+                    client.disconnect().waitForCompletion(TimeUnit.SECONDS.toMillis(5));
+                }
+            } catch (MqttException e) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private void ramp(BackendClient backend) throws InterruptedException {
+        boolean probe = true;
+        double rate = options.initialRate();
+        double sustained = 0;
+        BackendClient.Sample first = null;
+        BackendClient.Sample last = null;
+
+        System.out.printf("%10s %10s %10s %10s %10s %10s%n", "target/s", "sent/s", "handled/s", "lag ms", "queued", "");
+        while (rate <= options.maxRate) {
+            BackendClient.Sample before = probe ? sample(backend) : null;
+            probe = before != null;
+            long sentBefore = published;
+            long start = System.nanoTime();
+
+            publishFor(rate, options.stepSeconds);
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double sentRate = (published - sentBefore) / seconds;
+            BackendClient.Sample after = probe ? sample(backend) : null;
+            if (after == null) {
+                System.out.printf("%10.0f %10.0f %10s %10s %10s%n", rate, sentRate, "-", "-", "-");
+                probe = false;
+                continue;
+            }
+
+            first = first != null ? first : before;
+            last = after;
+            double window = (after.atNanos() - before.atNanos()) / 1e9;
+            double handledRate = (after.processed() - before.processed() + after.superseded() - before.superseded()) / window;
+            double lagCount = after.lagCount() - before.lagCount();
+            double meanLagMs = lagCount > 0 ? (after.lagSeconds() - before.lagSeconds()) / lagCount * 1000 : 0;
+            boolean overflowed = after.overflow() > before.overflow();
+
+            String verdict;
+            if (sentRate < rate * TOLERANCE) {
+                verdict = "simulator saturated";
+            } else if (overflowed || handledRate < sentRate * TOLERANCE
+                    || meanLagMs > options.maxLagMs || after.queueDepth() > options.maxQueueDepth) {
+                verdict = overflowed ? "overflow" : "falling behind";
+            } else {
+                verdict = "ok";
+                sustained = Math.max(sustained, sentRate);
+            }
+            System.out.printf("%10.0f %10.0f %10.0f %10.1f %10.0f   %s%n",
+                    rate, sentRate, handledRate, meanLagMs, after.queueDepth(), verdict);
+
+            if (!verdict.equals("ok") && options.rampStep > 0) {
+                break;
+            }
+            rate += options.rampStep;
+        }
+
+        System.out.printf("Published %d messages (%d throttled by the in-flight window, %d failed)%n",
+                published, throttled, failed.get());
+        if (first != null && backend.managementUrls().size() > 1) {
+            printNodeShares(backend.managementUrls(), first, last);
+        }
+        if (sustained > 0) {
+            System.out.printf("Sustained %.0f msg/s, i.e. %d bins each reporting every %.1f s%n",
+                    sustained, fleet.size(), fleet.size() / sustained);
+        } else if (probe) {
+            System.out.println("No step was sustained; lower --report-interval or --ramp-step");
+        }
+    }
+
+    // How evenly the backend nodes split the messages; each should handle about 1/n of them
+    private static void printNodeShares(List<String> nodes, BackendClient.Sample first, BackendClient.Sample last) {
+        double total = last.processed() - first.processed();
+        if (total <= 0) {
+            return;
+        }
+        System.out.println("Handled per backend node:");
+        for (int i = 0; i < nodes.size(); i++) {
+            double handled = last.processedByNode()[i] - first.processedByNode()[i];
+            System.out.printf("  %-30s %10.0f  %5.1f%%%n", nodes.get(i), handled, handled / total * 100);
+        }
+    }
+
+    private BackendClient.Sample sample(BackendClient backend) throws InterruptedException {
+        try {
+            return backend.sample();
+        } catch (IOException e) {
+            System.out.printf("Cannot read backend metrics (%s); publishing at a fixed rate without judging it%n", e.getMessage());
+            return null;
+        }
+    }
+
+    /** Publish at {@code rate} msg/s for {@code seconds}, bins taking turns round robin. */
+    private void publishFor(double rate, int seconds) {
+        long now = System.nanoTime();
+        long end = now + TimeUnit.SECONDS.toNanos(seconds);
+        long last = now;
+        double credit = 0;
+        double maxBurst = Math.max(1, rate / 10);
+
+        while ((now = System.nanoTime()) < end) {
+            credit = Math.min(maxBurst, credit + rate * (now - last) / 1e9);
+            last = now;
+            while (credit >= 1) {
+                credit -= publishNext();
+            }
+            LockSupport.parkNanos(500_000);
+        }
+    }
+
+    /** Publish the next bin's status, plus its location every {@code location-every} reports; returns messages sent. */
+    private int publishNext() {
+        int index = cursor;
+        cursor = (cursor + 1) % fleet.size();
+        VirtualBin bin = fleet.get(index);
+        MqttAsyncClient client = clients[index % clients.length];
+        long simulatedNow = startedAt + (long) ((System.currentTimeMillis() - startedAt) * options.timeScale);
+
+        BinStatusDTO status = bin.nextStatus(simulatedNow, options.emptyAt, random);
+        int sent = publish(client, topic(options.statusTopic, bin), encodeStatus(status));
+        if (options.locationEvery > 0 && (status.getSeq() - 1) % options.locationEvery == 0) {
+            sent += publish(client, topic(options.locationTopic, bin), encodeLocation(bin));
+        }
+        return Math.max(1, sent);
+    }
+
+    private int publish(MqttAsyncClient client, String topic, byte[] payload) {
+        try {
+            client.publish(topic, payload, options.qos, false, null, failureCounter);
+            published++;
+            return 1;
+        } catch (MqttException e) {
+            if (e.getReasonCode() == MqttException.REASON_CODE_MAX_INFLIGHT) {
+                throttled++;
+            } else {
+                failed.incrementAndGet();
+            }
+            return 0;
+        }
+    }
+
+    private byte[] encodeStatus(BinStatusDTO status) {
+        if (options.format == SimulatorOptions.Format.BINARY) {
+            return BinTelemetryCodec.encodeStatus(status);
+        }
+        return json(status);
+    }
+
+    private byte[] encodeLocation(VirtualBin bin) {
+        BinLocationDTO location = bin.nextLocation(options.jitterMeters, random);
+        if (options.format == SimulatorOptions.Format.BINARY) {
+            return BinTelemetryCodec.encodeLocation(location);
+        }
+        return json(location);
+    }
+
+    private byte[] json(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize " + payload.getClass().getSimpleName(), e);
+        }
+    }
+
+    // Same hash as the backend, so a {partition} topic reaches the node owning the bin
+    private String topic(String template, VirtualBin bin) {
+        return template
+                .replace("{binId}", bin.binId())
+                .replace("{partition}", String.valueOf(IngestNode.partitionOf(bin.binId(), options.partitions)));
+    }
+}
@@ -0,0 +1,149 @@
+package com.smart_wastebackend.simulator;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line options of the simulator, given as {@code --name=value}. Every option has a
+ * default so a bare run against a local broker and backend works.
+ */
+final class SimulatorOptions {
+
+    /** Payload encodings understood by the backend's telemetry codec. */
+    enum Format {
+        JSON,
+        BINARY,
+    }
+
+    final String broker;
+    final String backend;
+    final String management;
+    final String username;
+    final String password;
+    final String token;
+    final boolean register;
+
+    final int bins;
+    final String idPrefix;
+    final String statusTopic;
+    final String locationTopic;
+    final int partitions;
+    final Format format;
+    final int qos;
+    final int connections;
+    final int maxInflight;
+
+    final FillCurve curve;
+    final double minFillRate;
+    final double maxFillRate;
+    final double emptyAt;
+    final double timeScale;
+    final int locationEvery;
+    final double jitterMeters;
+    final double centerLatitude;
+    final double centerLongitude;
+    final double spreadKm;
+
+    final double reportIntervalSeconds;
+    final double rampStep;
+    final double maxRate;
+    final int stepSeconds;
+    final int maxQueueDepth;
+    final double maxLagMs;
+    final long seed;
+
+    private SimulatorOptions(Map<String, String> values) {
+        broker = string(values, "broker", "tcp://localhost:1883");
+        backend = string(values, "backend", "http://localhost:8080");
+        management = string(values, "management", "http://localhost:8081");
+        username = string(values, "username", null);
+        password = string(values, "password", null);
+        token = string(values, "token", null);
+        register = bool(values, "register", false);
+
+        bins = integer(values, "bins", 1000);
+        idPrefix = string(values, "id-prefix", "SIM-");
+        statusTopic = string(values, "status-topic", "smartwaste/bin/{binId}/status");
+        locationTopic = string(values, "location-topic", "smartwaste/bin/{binId}/location");
+        partitions = integer(values, "partitions", 1);
+        format = Format.valueOf(string(values, "format", "json").toUpperCase(Locale.ROOT));
+        qos = integer(values, "qos", 1);
+        connections = integer(values, "connections", 4);
+        maxInflight = integer(values, "max-inflight", 1000);
+
+        curve = FillCurve.valueOf(string(values, "curve", "mixed").toUpperCase(Locale.ROOT));
+        minFillRate = decimal(values, "min-fill-rate", 0.5);
+        maxFillRate = decimal(values, "max-fill-rate", 4);
+        emptyAt = decimal(values, "empty-at", 95);
+        timeScale = decimal(values, "time-scale", 60);
+        locationEvery = integer(values, "location-every", 10);
+        jitterMeters = decimal(values, "jitter-meters", 15);
+        centerLatitude = decimal(values, "center-lat", 6.9271);
+        centerLongitude = decimal(values, "center-lon", 79.8612);
+        spreadKm = decimal(values, "spread-km", 10);
+
+        reportIntervalSeconds = decimal(values, "report-interval", 60);
+        rampStep = decimal(values, "ramp-step", Math.max(1, bins / reportIntervalSeconds));
+        maxRate = decimal(values, "max-rate", 50_000);
+        stepSeconds = integer(values, "step-seconds", 30);
+        maxQueueDepth = integer(values, "max-queue-depth", 100);
+        maxLagMs = decimal(values, "max-lag-ms", 250);
+        seed = Long.parseLong(string(values, "seed", "42"));
+
+        if (bins < 1 || connections < 1 || stepSeconds < 1 || reportIntervalSeconds <= 0 || partitions < 1) {
+            throw new IllegalArgumentException("bins, connections, step-seconds, report-interval and partitions must be positive");
+        }
+        if (qos < 0 || qos > 2) {
+            throw new IllegalArgumentException("qos must be 0, 1 or 2");
+        }
+        if (minFillRate < 0 || maxFillRate < minFillRate) {
+            throw new IllegalArgumentException("Fill rates must satisfy 0 <= min-fill-rate <= max-fill-rate");
+        }
+    }
+
+    static SimulatorOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument '" + arg + "', options are --name=value");
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return new SimulatorOptions(values);
+    }
+
+    /** Message rate at which every bin reports once per {@code report-interval}. */
+    double initialRate() {
+        return bins / reportIntervalSeconds;
+    }
+
+    String binId(int index) {
+        return String.format("%s%05d", idPrefix, index + 1);
+    }
+
+    private static String string(Map<String, String> values, String name, String defaultValue) {
+        String value = values.get(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    private static int integer(Map<String, String> values, String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static double decimal(Map<String, String> values, String name, double defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static boolean bool(Map<String, String> values, String name, boolean defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,82 @@
+package com.smart_wastebackend.simulator;
+
+import com.smart_wastebackend.dto.BinLocationDTO;
+import com.smart_wastebackend.dto.BinStatusDTO;
+
+import java.util.Random;
+
+/**
+ * One simulated bin: three fill levels that grow along its {@link FillCurve} in simulated time,
+ * a home position reported with GPS jitter, and the per-device sequence number the firmware sends.
+ * When the fullest compartment reaches {@code empty-at} the bin is "collected" and every level
+ * drops back to a few percent, so long runs keep producing realistic readings.
+ * <p>
+ * Not thread-safe; all bins are driven by the single publisher thread.
+ */
+final class VirtualBin {
+
+    private static final double METERS_PER_DEGREE = 111_320d;
+    private static final double HOUR_MILLIS = 3_600_000d;
+
+    private final String binId;
+    private final FillCurve curve;
+    private final double[] rates = new double[3];
+    private final double[] levels = new double[3];
+    private final double latitude;
+    private final double longitude;
+    private long seq;
+    private long lastSimulatedAt;
+
+    VirtualBin(String binId, SimulatorOptions options, Random random, long simulatedNow) {
+        this.binId = binId;
+        this.curve = options.curve.pick(random);
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = options.minFillRate + random.nextDouble() * (options.maxFillRate - options.minFillRate);
+            levels[i] = random.nextDouble() * options.emptyAt * 0.8;
+        }
+        double spreadMeters = options.spreadKm * 1000;
+        this.latitude = options.centerLatitude + (random.nextDouble() * 2 - 1) * spreadMeters / METERS_PER_DEGREE;
+        this.longitude = options.centerLongitude + (random.nextDouble() * 2 - 1) * spreadMeters
+                / (METERS_PER_DEGREE * Math.cos(Math.toRadians(options.centerLatitude)));
+        this.lastSimulatedAt = simulatedNow;
+    }
+
+    String binId() {
+        return binId;
+    }
+
+    /** Advance the levels to {@code simulatedNow} and return the reading the bin would publish. */
+    BinStatusDTO nextStatus(long simulatedNow, double emptyAt, Random random) {
+        double hours = Math.max(0, simulatedNow - lastSimulatedAt) / HOUR_MILLIS;
+        double hourOfDay = (lastSimulatedAt / HOUR_MILLIS) % 24;
+        lastSimulatedAt = simulatedNow;
+
+        double fullest = 0;
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = Math.min(100, levels[i] + curve.growth(rates[i], hourOfDay, hours, random));
+            fullest = Math.max(fullest, levels[i]);
+        }
+        if (fullest >= emptyAt) {
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = random.nextDouble() * 5;
+            }
+        }
+
+        BinStatusDTO status = new BinStatusDTO();
+        status.setPlasticLevel(Math.round(levels[0]));
+        status.setPaperLevel(Math.round(levels[1]));
+        status.setGlassLevel(Math.round(levels[2]));
+        status.setSeq(++seq);
+        status.setTimestamp(System.currentTimeMillis());
+        return status;
+    }
+
+    /** The home position plus Gaussian noise with a standard deviation of {@code jitterMeters}. */
+    BinLocationDTO nextLocation(double jitterMeters, Random random) {
+        BinLocationDTO location = new BinLocationDTO();
+        location.setLatitude(latitude + random.nextGaussian() * jitterMeters / METERS_PER_DEGREE);
+        location.setLongitude(longitude + random.nextGaussian() * jitterMeters
+                / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude))));
+        return location;
+    }
+}
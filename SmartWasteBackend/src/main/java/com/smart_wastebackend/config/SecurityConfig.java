@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smart_wastebackend.dto.ApiResponse;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -33,6 +34,9 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final AuthenticationProvider authenticationProvider;
 
+    @Value("${management.server.port:8081}")
+    private int managementPort;
+
     @Autowired
     public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, AuthenticationProvider authenticationProvider) {
         this.jwtAuthFilter = jwtAuthFilter;
@@ -76,6 +80,9 @@ public class SecurityConfig {
 
                         // Your original rules
                         .requestMatchers("/api/auth/**", "/ws/**").permitAll()
+                        // Actuator is served only on the management port, which is bound to an internal
+                        // address; Prometheus and the load simulator read it without a JWT
+                        .requestMatchers(httpRequest -> httpRequest.getLocalPort() == managementPort).permitAll()
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(exception -> exception
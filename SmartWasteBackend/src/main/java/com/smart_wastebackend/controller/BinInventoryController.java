@@ -2,15 +2,22 @@ package com.smart_wastebackend.controller;
 
 import com.smart_wastebackend.dto.*;
 import com.smart_wastebackend.enums.BinStatusEnum;
+import com.smart_wastebackend.enums.RollupGranularity;
+import com.smart_wastebackend.enums.WasteType;
 import com.smart_wastebackend.model.BinInventory;
 import com.smart_wastebackend.model.UserTable;
+import com.smart_wastebackend.service.BinHistoryService;
 import com.smart_wastebackend.service.BinInventoryService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
@@ -18,10 +25,12 @@ import java.util.List;
 public class BinInventoryController {
 
     private final BinInventoryService binService;
+    private final BinHistoryService binHistoryService;
 
     @Autowired
-    public BinInventoryController(BinInventoryService binService) {
+    public BinInventoryController(BinInventoryService binService, BinHistoryService binHistoryService) {
         this.binService = binService;
+        this.binHistoryService = binHistoryService;
     }
 
     @GetMapping
@@ -86,4 +95,67 @@ public class BinInventoryController {
     public ApiResponse<BinInventory> assignBinToSelf(@PathVariable String binId, @AuthenticationPrincipal UserTable user) {
         return binService.assignBinToOwner(binId, user.getId());
     }
-}
\ No newline at end of file
+
+    // Fill level trend of one bin, downsampled to at most maxPoints buckets (resolution as ISO-8601, e.g. PT15M)
+    @GetMapping("/{binId}/history")
+    @PreAuthorize("hasAnyRole('ADMIN', 'BIN_OWNER')")
+    public ApiResponse<List<BinHistoryPointDTO>> getBinHistory(
+            @PathVariable String binId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String resolution,
+            @RequestParam(defaultValue = "500") int maxPoints,
+            @AuthenticationPrincipal UserTable user
+    ) {
+        Duration bucket;
+        try {
+            bucket = resolution != null ? Duration.parse(resolution) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid resolution '" + resolution + "', expected e.g. PT15M");
+        }
+
+        List<BinHistoryPointDTO> points = binHistoryService.getHistory(binId, user, from, to, bucket, maxPoints);
+        return ApiResponse.<List<BinHistoryPointDTO>>builder()
+                .success(true)
+                .message("Bin history fetched successfully")
+                .data(points)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+
+    // Hourly or daily min/max/avg/last per waste type, read from the pre-aggregated rollups
+    @GetMapping("/{binId}/rollups")
+    @PreAuthorize("hasAnyRole('ADMIN', 'BIN_OWNER')")
+    public ApiResponse<List<BinRollupDTO>> getBinRollups(
+            @PathVariable String binId,
+            @RequestParam(defaultValue = "HOURLY") RollupGranularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @AuthenticationPrincipal UserTable user
+    ) {
+        List<BinRollupDTO> rollups = binHistoryService.getRollups(binId, user, granularity, from, to);
+        return ApiResponse.<List<BinRollupDTO>>builder()
+                .success(true)
+                .message("Bin rollups fetched successfully")
+                .data(rollups)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+
+    // Predicted time to full per waste type, from the online fill-rate estimate
+    @GetMapping("/{binId}/forecast")
+    @PreAuthorize("hasAnyRole('ADMIN', 'BIN_OWNER')")
+    public ApiResponse<BinForecastDTO> getBinForecast(@PathVariable String binId, @AuthenticationPrincipal UserTable user) {
+        return binService.getForecast(binId, user);
+    }
+
+    // All bins predicted to be full within the given number of hours, soonest first
+    @GetMapping("/forecast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<List<BinForecastDTO>> getBinsPredictedFull(
+            @RequestParam(defaultValue = "24") long withinHours,
+            @RequestParam(required = false) WasteType wasteType
+    ) {
+        return binService.getBinsPredictedFull(withinHours, wasteType);
+    }
+}
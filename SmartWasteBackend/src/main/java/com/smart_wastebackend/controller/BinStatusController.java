@@ -2,8 +2,10 @@ package com.smart_wastebackend.controller;
 
 import com.smart_wastebackend.dto.ApiResponse;
 import com.smart_wastebackend.dto.BinStatusDTO;
+import com.smart_wastebackend.dto.HighFillSweepDTO;
 import com.smart_wastebackend.model.UserTable;
 import com.smart_wastebackend.service.BinStatusService;
+import com.smart_wastebackend.service.HighFillSweepService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -15,10 +17,12 @@ import java.time.LocalDateTime;
 @RequestMapping("/api/bin/status")
 public class BinStatusController {
     private final BinStatusService binStatusService;
+    private final HighFillSweepService highFillSweepService;
 
     @Autowired
-    public BinStatusController(BinStatusService binStatusService) {
+    public BinStatusController(BinStatusService binStatusService, HighFillSweepService highFillSweepService) {
         this.binStatusService = binStatusService;
+        this.highFillSweepService = highFillSweepService;
     }
 
     @GetMapping("/fetch/{binId}")
@@ -27,14 +31,26 @@ public class BinStatusController {
         return binStatusService.getBinStatus(binId, userTable.getId());
     }
 
+    // Runs in the background; poll GET /check-notifications for progress
     @PostMapping("/check-notifications")
     @PreAuthorize("hasRole('ADMIN')")
-    public ApiResponse<Object> checkAllBinsForHighLevels() {
-        binStatusService.checkAllBinsForHighLevels();
-
-        return ApiResponse.builder()
+    public ApiResponse<HighFillSweepDTO> checkAllBinsForHighLevels() {
+        return ApiResponse.<HighFillSweepDTO>builder()
                 .success(true)
-                .message("Notification check completed")
+                .message("Notification check started")
+                .data(highFillSweepService.start())
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+
+    @GetMapping("/check-notifications")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<HighFillSweepDTO> getHighLevelCheckProgress() {
+        HighFillSweepDTO sweep = highFillSweepService.latest().orElse(null);
+        return ApiResponse.<HighFillSweepDTO>builder()
+                .success(sweep != null)
+                .message(sweep != null ? "Notification check " + sweep.getStatus() : "No notification check has run")
+                .data(sweep)
                 .timestamp(LocalDateTime.now().toString())
                 .build();
     }
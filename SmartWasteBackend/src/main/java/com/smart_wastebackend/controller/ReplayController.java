@@ -0,0 +1,85 @@
+package com.smart_wastebackend.controller;
+
+import com.smart_wastebackend.dto.ApiResponse;
+import com.smart_wastebackend.dto.ReplayReportDTO;
+import com.smart_wastebackend.enums.ReplayTarget;
+import com.smart_wastebackend.mqtt.MqttReplayer;
+import com.smart_wastebackend.mqtt.MqttTrafficRecorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+// Load testing: record live MQTT traffic and replay it through the ingest pipeline.
+// Replays go into the live pipeline, so the endpoints only exist with replay.enabled=true
+@RestController
+@ConditionalOnProperty(name = "replay.enabled", havingValue = "true")
+@RequestMapping("/api/admin/replay")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReplayController {
+
+    private final MqttTrafficRecorder recorder;
+    private final MqttReplayer replayer;
+
+    @Autowired
+    public ReplayController(MqttTrafficRecorder recorder, MqttReplayer replayer) {
+        this.recorder = recorder;
+        this.replayer = replayer;
+    }
+
+    @PostMapping("/record/start")
+    public ApiResponse<String> startRecording(@RequestParam String file) throws IOException {
+        recorder.start(file);
+        return ApiResponse.<String>builder()
+                .success(true)
+                .message("Recording inbound MQTT messages")
+                .data(file)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+
+    @PostMapping("/record/stop")
+    public ApiResponse<Long> stopRecording() {
+        long recorded = recorder.stop();
+        return ApiResponse.<Long>builder()
+                .success(true)
+                .message("Recording stopped")
+                .data(recorded)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+
+    // speed: 1 = recorded pace, N = N times faster, 0 = as fast as possible.
+    // Runs in the background; poll GET /run for progress and the report
+    @PostMapping("/run")
+    public ApiResponse<ReplayReportDTO> replay(
+            @RequestParam String file,
+            @RequestParam(defaultValue = "CHANNEL") ReplayTarget target,
+            @RequestParam(defaultValue = "1") double speed
+    ) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("speed must be 0 (max) or positive");
+        }
+
+        return ApiResponse.<ReplayReportDTO>builder()
+                .success(true)
+                .message("Replay started")
+                .data(replayer.start(file, target, speed))
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+
+    @GetMapping("/run")
+    public ApiResponse<ReplayReportDTO> getReplayProgress() {
+        ReplayReportDTO replay = replayer.latest().orElse(null);
+        return ApiResponse.<ReplayReportDTO>builder()
+                .success(replay != null)
+                .message(replay != null ? "Replay " + replay.getStatus() : "No replay has run")
+                .data(replay)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.smart_wastebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * When a bin is expected to reach the full level, per waste type and overall (earliest of the three).
+ * A null time means the type is not filling or there is not enough data yet.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BinForecastDTO {
+    private String binId;
+    private LocalDateTime predictedFullAt;
+    private LocalDateTime plasticPredictedFullAt;
+    private LocalDateTime paperPredictedFullAt;
+    private LocalDateTime glassPredictedFullAt;
+    // Smoothed fill rates in percentage points per hour, before day-of-week adjustment
+    private Double plasticFillRate;
+    private Double paperFillRate;
+    private Double glassFillRate;
+}
@@ -0,0 +1,21 @@
+package com.smart_wastebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/** Average fill levels of one bin over one history bucket starting at {@code timestamp}. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BinHistoryPointDTO {
+    private LocalDateTime timestamp;
+    private Double plasticLevel;
+    private Double paperLevel;
+    private Double glassLevel;
+    private Long samples;
+}
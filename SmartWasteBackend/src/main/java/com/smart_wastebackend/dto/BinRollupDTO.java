@@ -0,0 +1,20 @@
+package com.smart_wastebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/** Per waste type fill statistics of one bin over the hour or day starting at {@code bucket}. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BinRollupDTO {
+    private LocalDateTime bucket;
+    private FillStatsDTO plastic;
+    private FillStatsDTO paper;
+    private FillStatsDTO glass;
+}
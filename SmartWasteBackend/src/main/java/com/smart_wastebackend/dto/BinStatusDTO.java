@@ -13,4 +13,7 @@ public class BinStatusDTO {
     private Long paperLevel;
     private Long glassLevel;
     private LocalDateTime lastEmptiedAt;
+    // Set by the bin firmware: per-device sequence number and reading time (epoch millis)
+    private Long seq;
+    private Long timestamp;
 }
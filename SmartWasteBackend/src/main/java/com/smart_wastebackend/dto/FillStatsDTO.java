@@ -0,0 +1,17 @@
+package com.smart_wastebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class FillStatsDTO {
+    private Long min;
+    private Long max;
+    private Double avg;
+    private Long last;
+}
@@ -0,0 +1,27 @@
+package com.smart_wastebackend.dto;
+
+import com.smart_wastebackend.enums.SweepStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/** Progress of a high fill level sweep; {@code binsTotal} is counted when the sweep starts. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class HighFillSweepDTO {
+    private String sweepId;
+    private SweepStatus status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long binsTotal;
+    private Long binsScanned;
+    // Bins that got a notification; the others already had an unread one from the last 24 hours
+    private Long binsAlerted;
+    private Long notificationsCreated;
+    private String error;
+}
@@ -0,0 +1,40 @@
+package com.smart_wastebackend.dto;
+
+import com.smart_wastebackend.enums.ReplayStatus;
+import com.smart_wastebackend.enums.ReplayTarget;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress and outcome of one replay run; everything after {@code messagesSent} is filled in
+ * once the run completes. Latency percentiles come from the {@code smartwaste.ingest.latency}
+ * timer, whose percentile window covers roughly the last two minutes; the mean covers exactly
+ * the messages processed during the run.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReplayReportDTO {
+    private String replayId;
+    private ReplayStatus status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String file;
+    private ReplayTarget target;
+    // 0 means as fast as possible
+    private Double speed;
+    private Long messagesSent;
+    private Long messagesProcessed;
+    private Long durationMs;
+    private Double throughputPerSecond;
+    private Double meanLatencyMs;
+    private Double p50LatencyMs;
+    private Double p99LatencyMs;
+    private Long mongoWrites;
+    private String error;
+}
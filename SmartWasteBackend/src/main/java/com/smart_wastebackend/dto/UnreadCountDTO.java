@@ -0,0 +1,23 @@
+package com.smart_wastebackend.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Frame pushed over the notification socket whenever the unread count changes; {@code type} tells
+ * it apart from notification frames.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class UnreadCountDTO {
+    private String type = "UNREAD_COUNT";
+    private Long unread;
+    private Long delta;
+
+    public UnreadCountDTO(Long unread, Long delta) {
+        this.unread = unread;
+        this.delta = delta;
+    }
+}
@@ -0,0 +1,7 @@
+package com.smart_wastebackend.enums;
+
+// Relayed to the node owning a bin when another node changed it through the API
+public enum BinChange {
+    UPDATED,  // Status, owner, location or collection time changed in Mongo; the owner re-reads the bin
+    DELETED   // Removed from the inventory; the owner forgets it
+}
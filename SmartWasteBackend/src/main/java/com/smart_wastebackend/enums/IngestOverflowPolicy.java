@@ -0,0 +1,8 @@
+package com.smart_wastebackend.enums;
+
+public enum IngestOverflowPolicy {
+    BLOCK,               // Block the MQTT callback thread until the lane has room
+    DROP_NEWEST,         // Discard the incoming message
+    DROP_OLDEST,         // Discard the oldest queued message of the lane
+    DROP_OLDEST_PER_BIN  // Keep only the latest queued message per bin and topic, block when still full
+}
@@ -0,0 +1,18 @@
+package com.smart_wastebackend.enums;
+
+import java.util.Locale;
+
+public enum IngestStage {
+    RECEIVE,    // MQTT callback: routing and hand-off to the ingest lane
+    PARSE,      // Payload decoding and validation
+    PERSIST,    // Dedup, change detection and queueing for the write-behind flush
+    THRESHOLD,  // Fill level threshold crossing check
+    NOTIFY,     // Creating the notifications for a crossing
+    PUSH;       // WebSocket push to the user
+
+    private final String tag = name().toLowerCase(Locale.ROOT);
+
+    public String getTag() {
+        return tag;
+    }
+}
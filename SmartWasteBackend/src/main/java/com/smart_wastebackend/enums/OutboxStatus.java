@@ -0,0 +1,10 @@
+package com.smart_wastebackend.enums;
+
+public enum OutboxStatus {
+    // Waiting for the dispatcher, possibly after a failed attempt
+    PENDING,
+    // Claimed by a dispatcher until locked_until; reclaimed after that if the node died
+    PROCESSING,
+    // Gave up after the configured number of attempts, kept for inspection
+    FAILED,
+}
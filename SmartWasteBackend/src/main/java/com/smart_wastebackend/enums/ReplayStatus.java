@@ -0,0 +1,8 @@
+package com.smart_wastebackend.enums;
+
+public enum ReplayStatus {
+    RUNNING,
+    COMPLETED,
+    // Stopped by an error; messagesSent shows how far it got
+    FAILED,
+}
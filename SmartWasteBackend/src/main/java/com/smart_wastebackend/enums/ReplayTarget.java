@@ -0,0 +1,8 @@
+package com.smart_wastebackend.enums;
+
+public enum ReplayTarget {
+    // Publish to the configured broker, so the subscription and Paho are exercised too
+    BROKER,
+    // Send straight into mqttInboundChannel, skipping the broker
+    CHANNEL,
+}
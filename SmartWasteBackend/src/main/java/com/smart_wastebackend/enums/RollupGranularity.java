@@ -0,0 +1,24 @@
+package com.smart_wastebackend.enums;
+
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    HOURLY("bin_rollup_hourly", ChronoUnit.HOURS),
+    DAILY("bin_rollup_daily", ChronoUnit.DAYS);
+
+    private final String collection;
+    private final ChronoUnit unit;
+
+    RollupGranularity(String collection, ChronoUnit unit) {
+        this.collection = collection;
+        this.unit = unit;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public ChronoUnit getUnit() {
+        return unit;
+    }
+}
@@ -0,0 +1,8 @@
+package com.smart_wastebackend.enums;
+
+public enum SweepStatus {
+    RUNNING,
+    COMPLETED,
+    // Stopped by an error; the counters show how far it got
+    FAILED,
+}
@@ -0,0 +1,7 @@
+package com.smart_wastebackend.enums;
+
+public enum WasteType {
+    PLASTIC,
+    PAPER,
+    GLASS,
+}
@@ -1,6 +1,7 @@
 package com.smart_wastebackend.model;
 
 import com.smart_wastebackend.enums.BinStatusEnum;
+import com.smart_wastebackend.model.embedded.FillForecast;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -50,8 +51,16 @@ BinInventory {
 
     @Field("last_emptied_at")
     private LocalDateTime lastEmptiedAt;
+
+    // Last time the bin reported anything over MQTT (refreshed at least once per heartbeat interval)
+    @Field("last_seen_at")
+    private LocalDateTime lastSeenAt;
     // ---------------------------------------------
 
+    // Only written when bins are split over several ingest nodes, see BinForecastStore
+    @Field("forecast")
+    private FillForecast forecast;
+
     public void assignToOwner(String newOwnerId) {
         this.ownerId = newOwnerId;
         this.status = BinStatusEnum.ASSIGNED;
@@ -0,0 +1,44 @@
+package com.smart_wastebackend.model;
+
+import com.smart_wastebackend.model.embedded.LevelStats;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fill level statistics of one bin over one hour or day. Stored in {@code bin_rollup_hourly} and
+ * {@code bin_rollup_daily}; the id is {@code <binId>:<bucket epoch millis>}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BinRollup {
+
+    @Id
+    private String id;
+
+    @Field("bin_id")
+    private String binId;
+
+    @Field("bucket")
+    private LocalDateTime bucket;
+
+    // Number of readings folded into this bucket
+    @Field("samples")
+    private Long samples;
+
+    @Field("plastic")
+    private LevelStats plastic;
+
+    @Field("paper")
+    private LevelStats paper;
+
+    @Field("glass")
+    private LevelStats glass;
+}
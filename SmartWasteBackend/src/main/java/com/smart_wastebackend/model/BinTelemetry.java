@@ -0,0 +1,44 @@
+package com.smart_wastebackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.LocalDateTime;
+
+/**
+ * One accepted fill level reading. Stored in a Mongo time-series collection bucketed by bin
+ * (meta field) and reading time; the collection and its retention are created by BinHistoryService.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "bin_telemetry")
+@TimeSeries(timeField = "timestamp", metaField = "binId", granularity = Granularity.HOURS)
+public class BinTelemetry {
+
+    @Id
+    private String id;
+
+    @Field("bin_id")
+    private String binId;
+
+    @Field("timestamp")
+    private LocalDateTime timestamp;
+
+    @Field("plastic_level")
+    private Long plasticLevel;
+
+    @Field("paper_level")
+    private Long paperLevel;
+
+    @Field("glass_level")
+    private Long glassLevel;
+}
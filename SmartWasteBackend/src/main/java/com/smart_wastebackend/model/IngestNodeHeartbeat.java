@@ -0,0 +1,38 @@
+package com.smart_wastebackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Last heartbeat of one backend node, written by IngestNodeRegistry
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ingest_nodes")
+public class IngestNodeHeartbeat {
+
+    // mqtt.instance-id of the node
+    @Id
+    private String instanceId;
+
+    @Field("partition_count")
+    private Integer partitionCount;
+
+    @Field("partitions")
+    private List<Integer> partitions;
+
+    // Messages per second of owned bins over the last heartbeat interval
+    @Field("rate")
+    private Double rate;
+
+    @Field("heartbeat_at")
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,32 @@
+package com.smart_wastebackend.model;
+
+import com.smart_wastebackend.enums.UserRoleEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+// Unread notifications of one recipient, kept up to date by UnreadCounters
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "notification_counters")
+public class NotificationCounter {
+
+    // <recipient id>:<recipient type>
+    @Id
+    private String id;
+
+    @Field("recipient_id")
+    private String recipientId;
+
+    @Field("recipient_type")
+    private UserRoleEnum recipientType;
+
+    @Field("unread")
+    private Long unread;
+}
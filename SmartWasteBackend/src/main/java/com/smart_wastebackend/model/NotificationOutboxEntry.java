@@ -0,0 +1,58 @@
+package com.smart_wastebackend.model;
+
+import com.smart_wastebackend.enums.NotificationType;
+import com.smart_wastebackend.enums.OutboxStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// A notification waiting to be created and pushed by NotificationOutboxDispatcher
+@Document(collection = "notification_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutboxEntry {
+
+    @Id
+    private String id;
+
+    @Field("notification_type")
+    private NotificationType notificationType;
+
+    // Arguments of the NotificationService method for the type
+    @Field("payload")
+    private Map<String, Object> payload;
+
+    @Field("status")
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Field("attempts")
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Field("created_at")
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Field("next_attempt_at")
+    @Builder.Default
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Field("claim_token")
+    private String claimToken;
+
+    @Field("locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Field("last_error")
+    private String lastError;
+}
@@ -0,0 +1,50 @@
+package com.smart_wastebackend.model.embedded;
+
+import com.smart_wastebackend.dto.BinForecastDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/** Last fill forecast of a bin, written by the node that ingests it so other nodes can serve it. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FillForecast {
+
+    @Field("predicted_full_at")
+    private LocalDateTime predictedFullAt;
+
+    @Field("plastic_predicted_full_at")
+    private LocalDateTime plasticPredictedFullAt;
+
+    @Field("paper_predicted_full_at")
+    private LocalDateTime paperPredictedFullAt;
+
+    @Field("glass_predicted_full_at")
+    private LocalDateTime glassPredictedFullAt;
+
+    @Field("plastic_fill_rate")
+    private Double plasticFillRate;
+
+    @Field("paper_fill_rate")
+    private Double paperFillRate;
+
+    @Field("glass_fill_rate")
+    private Double glassFillRate;
+
+    public static FillForecast of(BinForecastDTO dto) {
+        return new FillForecast(dto.getPredictedFullAt(), dto.getPlasticPredictedFullAt(),
+                dto.getPaperPredictedFullAt(), dto.getGlassPredictedFullAt(),
+                dto.getPlasticFillRate(), dto.getPaperFillRate(), dto.getGlassFillRate());
+    }
+
+    public BinForecastDTO toDto(String binId) {
+        return new BinForecastDTO(binId, predictedFullAt, plasticPredictedFullAt, paperPredictedFullAt,
+                glassPredictedFullAt, plasticFillRate, paperFillRate, glassFillRate);
+    }
+}
@@ -0,0 +1,36 @@
+package com.smart_wastebackend.model.embedded;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/** Fill level statistics of one waste type over one rollup bucket. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LevelStats {
+
+    @Field("min")
+    private Long min;
+
+    @Field("max")
+    private Long max;
+
+    @Field("sum")
+    private Long sum;
+
+    @Field("count")
+    private Long count;
+
+    // Latest reading by reading time, so a late reading never replaces a newer one
+    @Field("last")
+    private Long last;
+
+    @Field("last_at")
+    private LocalDateTime lastAt;
+}
@@ -0,0 +1,62 @@
+package com.smart_wastebackend.mqtt;
+
+import com.smart_wastebackend.enums.BinChange;
+import com.smart_wastebackend.enums.IngestStage;
+import com.smart_wastebackend.service.BinChangeRelay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Handles {@link BinChange}s relayed by other nodes on {@code smartwaste/internal/bin/{binId}/changed}.
+ * Like readings, they only get here on the node owning the bin.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BinChangedTopicHandler implements MqttTopicHandler {
+
+    private final BinChangeRelay binChangeRelay;
+    private final IngestMetrics ingestMetrics;
+
+    @Value("${mqtt.bin-changed-topic}")
+    private String changedTopic;
+
+    @Override
+    public String topicPattern() {
+        return changedTopic;
+    }
+
+    @Override
+    public String topicType() {
+        return IngestMetrics.TOPIC_BIN_CHANGED;
+    }
+
+    @Override
+    public void handle(MqttTopicMatch match, byte[] payload) {
+        String binId = match.variable("binId");
+        long start = System.nanoTime();
+        BinChange change;
+        try {
+            change = BinChange.valueOf(new String(payload, StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            ingestMetrics.record(IngestStage.PARSE, IngestMetrics.TOPIC_BIN_CHANGED, "invalid", start);
+            log.warn("Ignoring unknown bin change on topic '{}'", match.topic());
+            return;
+        }
+        ingestMetrics.record(IngestStage.PARSE, IngestMetrics.TOPIC_BIN_CHANGED, IngestMetrics.OK, start);
+
+        start = System.nanoTime();
+        String outcome = IngestMetrics.ERROR;
+        try {
+            binChangeRelay.apply(binId, change);
+            outcome = IngestMetrics.OK;
+            log.debug("Applied {} of bin {} made on another node", change, binId);
+        } finally {
+            ingestMetrics.record(IngestStage.PERSIST, IngestMetrics.TOPIC_BIN_CHANGED, outcome, start);
+        }
+    }
+}
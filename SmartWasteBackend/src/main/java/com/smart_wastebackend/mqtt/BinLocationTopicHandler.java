@@ -0,0 +1,80 @@
+package com.smart_wastebackend.mqtt;
+
+import com.smart_wastebackend.dto.BinLocationDTO;
+import com.smart_wastebackend.enums.IngestStage;
+import com.smart_wastebackend.exception.BinStatusNotFoundException;
+import com.smart_wastebackend.service.BinStatusService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/** Handles GPS reports published on {@code smartwaste/bin/{binId}/location}. */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BinLocationTopicHandler implements MqttTopicHandler {
+
+    private final BinTelemetryCodec telemetryCodec;
+    private final BinStatusService binStatusService;
+    private final IngestMetrics ingestMetrics;
+
+    @Value("${mqtt.location-topic}")
+    private String locationTopic;
+
+    @Override
+    public String topicPattern() {
+        return locationTopic;
+    }
+
+    @Override
+    public String topicType() {
+        return IngestMetrics.TOPIC_LOCATION;
+    }
+
+    @Override
+    public void handle(MqttTopicMatch match, byte[] payload) {
+        String binId = match.variable("binId");
+        long start = System.nanoTime();
+        BinLocationDTO location;
+        try {
+            location = telemetryCodec.decodeLocation(payload);
+            validate(location);
+        } catch (IllegalArgumentException | IOException e) {
+            ingestMetrics.record(IngestStage.PARSE, IngestMetrics.TOPIC_LOCATION, "invalid", start);
+            log.warn("Failed to process location message for topic '{}'. Error: {}", match.topic(), e.getMessage());
+            return;
+        }
+        ingestMetrics.record(IngestStage.PARSE, IngestMetrics.TOPIC_LOCATION, IngestMetrics.OK, start);
+
+        start = System.nanoTime();
+        String outcome = IngestMetrics.ERROR;
+        try {
+            if (binStatusService.updateReportedLocation(binId, location)) {
+                outcome = IngestMetrics.OK;
+                log.info("Processed location for bin {}: {}, {}", binId, location.getLatitude(), location.getLongitude());
+            } else {
+                outcome = "suppressed";
+                log.debug("Location for bin {} within dead-band, not saved", binId);
+            }
+        } catch (BinStatusNotFoundException e) {
+            outcome = "unknown_bin";
+            log.warn("Failed to process location message for topic '{}'. Error: {}", match.topic(), e.getMessage());
+        } finally {
+            ingestMetrics.record(IngestStage.PERSIST, IngestMetrics.TOPIC_LOCATION, outcome, start);
+        }
+    }
+
+    private static void validate(BinLocationDTO location) {
+        Double latitude = location.getLatitude();
+        Double longitude = location.getLongitude();
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("Latitude and longitude are required");
+        }
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Coordinates out of range: " + latitude + ", " + longitude);
+        }
+    }
+}
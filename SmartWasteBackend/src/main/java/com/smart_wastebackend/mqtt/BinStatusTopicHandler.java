@@ -0,0 +1,86 @@
+package com.smart_wastebackend.mqtt;
+
+import com.smart_wastebackend.dto.BinStatusDTO;
+import com.smart_wastebackend.enums.IngestStage;
+import com.smart_wastebackend.exception.BinStatusNotFoundException;
+import com.smart_wastebackend.service.BinStatusService;
+import com.smart_wastebackend.service.BinStatusSocketService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/** Handles fill level reports published on {@code smartwaste/bin/{binId}/status}. */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BinStatusTopicHandler implements MqttTopicHandler {
+
+    private final BinTelemetryCodec telemetryCodec;
+    private final TelemetryDeduplicator deduplicator;
+    private final BinStatusService binStatusService;
+    private final BinStatusSocketService binStatusSocketService;
+    private final IngestMetrics ingestMetrics;
+
+    @Value("${mqtt.status-topic}")
+    private String statusTopic;
+
+    @Override
+    public String topicPattern() {
+        return statusTopic;
+    }
+
+    @Override
+    public String topicType() {
+        return IngestMetrics.TOPIC_STATUS;
+    }
+
+    @Override
+    public void handle(MqttTopicMatch match, byte[] payload) {
+        String binId = match.variable("binId");
+        long start = System.nanoTime();
+        BinStatusDTO statusDto;
+        try {
+            statusDto = telemetryCodec.decodeStatus(payload);
+        } catch (IllegalArgumentException | IOException e) {
+            ingestMetrics.record(IngestStage.PARSE, IngestMetrics.TOPIC_STATUS, "invalid", start);
+            log.warn("Failed to process status message for topic '{}'. Error: {}", match.topic(), e.getMessage());
+            return;
+        }
+        statusDto.setBinId(binId);
+        ingestMetrics.record(IngestStage.PARSE, IngestMetrics.TOPIC_STATUS, IngestMetrics.OK, start);
+
+        start = System.nanoTime();
+        String outcome = IngestMetrics.ERROR;
+        try {
+            TelemetryDeduplicator.Verdict verdict = deduplicator.check(binId, statusDto.getSeq(), statusDto.getTimestamp(), payload);
+            if (verdict != TelemetryDeduplicator.Verdict.ACCEPTED) {
+                outcome = verdict.name().toLowerCase(Locale.ROOT);
+                log.debug("Dropping {} reading of bin {} (seq {}, timestamp {})",
+                        verdict, binId, statusDto.getSeq(), statusDto.getTimestamp());
+                return;
+            }
+
+            boolean changed = binStatusService.updateBinLevels(statusDto);
+            deduplicator.accept(binId, statusDto.getSeq(), statusDto.getTimestamp(), payload);
+            if (!changed) {
+                outcome = "unchanged";
+                log.debug("Levels of bin {} unchanged, skipping save and push", binId);
+                return;
+            }
+            outcome = IngestMetrics.OK;
+        } catch (BinStatusNotFoundException e) {
+            outcome = "unknown_bin";
+            log.warn("Failed to process status message for topic '{}'. Error: {}", match.topic(), e.getMessage());
+            return;
+        } finally {
+            ingestMetrics.record(IngestStage.PERSIST, IngestMetrics.TOPIC_STATUS, outcome, start);
+        }
+
+        binStatusSocketService.sendBinStatusToUser(binId, statusDto);
+        log.info("Processed bin status for ID: {}", binId);
+    }
+}
@@ -0,0 +1,194 @@
+package com.smart_wastebackend.mqtt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smart_wastebackend.dto.BinLocationDTO;
+import com.smart_wastebackend.dto.BinStatusDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Decodes bin telemetry payloads straight from the MQTT {@code byte[]}.
+ * <p>
+ * Two encodings are accepted on the same topics and told apart by the first byte: JSON (as
+ * published by the original firmware) and a compact fixed-width binary format for metered links.
+ * The binary format is big-endian:
+ * <pre>
+ *   0      magic 0xB5 (never the first byte of a UTF-8 JSON document)
+ *   1      format version, 1 or 2
+ *   2      message type, 0x01 status / 0x02 location
+ *
+ *   status v1   (6 bytes)  3 plastic, 4 paper, 5 glass: unsigned percent, 0xFF = not reported
+ *   status v2   (14 bytes) as v1, then 6..9 sequence number and 10..13 reading time in epoch
+ *                          seconds, both unsigned int32, 0xFFFFFFFF = not reported
+ *   location v1 (11 bytes) 3..6 latitude, 7..10 longitude: signed int32, degrees * 1e7
+ * </pre>
+ * Status readings carrying a sequence number or timestamp are encoded as v2, others as v1.
+ * <p>
+ * Decoded levels must lie between 0 and 100 in either encoding; anything else is rejected as
+ * invalid rather than stored.
+ */
+@Component
+@RequiredArgsConstructor
+public class BinTelemetryCodec {
+
+    public static final byte MAGIC = (byte) 0xB5;
+    public static final byte VERSION_1 = 1;
+    public static final byte VERSION_2 = 2;
+    public static final byte TYPE_STATUS = 0x01;
+    public static final byte TYPE_LOCATION = 0x02;
+
+    private static final int HEADER_LENGTH = 3;
+    private static final int STATUS_V1_LENGTH = HEADER_LENGTH + 3;
+    private static final int STATUS_V2_LENGTH = STATUS_V1_LENGTH + 8;
+    private static final int LOCATION_V1_LENGTH = HEADER_LENGTH + 8;
+    private static final int LEVEL_NOT_REPORTED = 0xFF;
+    private static final long MAX_LEVEL = 100;
+    private static final long UNSIGNED_NOT_REPORTED = 0xFFFFFFFFL;
+    private static final double COORDINATE_SCALE = 1e7;
+
+    private final ObjectMapper objectMapper;
+
+    public static boolean isBinary(byte[] payload) {
+        return payload.length > 0 && payload[0] == MAGIC;
+    }
+
+    public BinStatusDTO decodeStatus(byte[] payload) throws IOException {
+        BinStatusDTO status = isBinary(payload)
+                ? decodeBinaryStatus(payload)
+                : objectMapper.readValue(payload, BinStatusDTO.class);
+        checkLevel("plastic", status.getPlasticLevel());
+        checkLevel("paper", status.getPaperLevel());
+        checkLevel("glass", status.getGlassLevel());
+        return status;
+    }
+
+    private static BinStatusDTO decodeBinaryStatus(byte[] payload) {
+        boolean v2 = payload.length > 1 && payload[1] == VERSION_2;
+        checkHeader(payload, TYPE_STATUS, v2 ? STATUS_V2_LENGTH : STATUS_V1_LENGTH);
+        BinStatusDTO status = new BinStatusDTO();
+        status.setPlasticLevel(readLevel(payload[3]));
+        status.setPaperLevel(readLevel(payload[4]));
+        status.setGlassLevel(readLevel(payload[5]));
+        if (v2) {
+            status.setSeq(readUnsigned(payload, 6, 1));
+            status.setTimestamp(readUnsigned(payload, 10, 1000));
+        }
+        return status;
+    }
+
+    public BinLocationDTO decodeLocation(byte[] payload) throws IOException {
+        if (!isBinary(payload)) {
+            return objectMapper.readValue(payload, BinLocationDTO.class);
+        }
+
+        checkHeader(payload, TYPE_LOCATION, LOCATION_V1_LENGTH);
+        if (payload[1] != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported binary location version: " + payload[1]);
+        }
+        BinLocationDTO location = new BinLocationDTO();
+        location.setLatitude(readInt(payload, 3) / COORDINATE_SCALE);
+        location.setLongitude(readInt(payload, 7) / COORDINATE_SCALE);
+        return location;
+    }
+
+    /** Binary encoding of a status reading, as published by bins on metered links. */
+    public static byte[] encodeStatus(BinStatusDTO status) {
+        boolean v2 = status.getSeq() != null || status.getTimestamp() != null;
+        byte[] payload = v2
+                ? header(VERSION_2, TYPE_STATUS, STATUS_V2_LENGTH)
+                : header(VERSION_1, TYPE_STATUS, STATUS_V1_LENGTH);
+        payload[3] = writeLevel(status.getPlasticLevel());
+        payload[4] = writeLevel(status.getPaperLevel());
+        payload[5] = writeLevel(status.getGlassLevel());
+        if (v2) {
+            writeInt(payload, 6, (int) writeUnsigned(status.getSeq(), 1));
+            writeInt(payload, 10, (int) writeUnsigned(status.getTimestamp(), 1000));
+        }
+        return payload;
+    }
+
+    /** Binary v1 encoding of a location report. */
+    public static byte[] encodeLocation(BinLocationDTO location) {
+        byte[] payload = header(VERSION_1, TYPE_LOCATION, LOCATION_V1_LENGTH);
+        writeInt(payload, 3, (int) Math.round(location.getLatitude() * COORDINATE_SCALE));
+        writeInt(payload, 7, (int) Math.round(location.getLongitude() * COORDINATE_SCALE));
+        return payload;
+    }
+
+    private static void checkHeader(byte[] payload, byte expectedType, int expectedLength) {
+        if (payload.length < HEADER_LENGTH) {
+            throw new IllegalArgumentException("Binary payload too short: " + payload.length + " bytes");
+        }
+        if (payload[1] != VERSION_1 && payload[1] != VERSION_2) {
+            throw new IllegalArgumentException("Unsupported binary payload version: " + payload[1]);
+        }
+        if (payload[2] != expectedType) {
+            throw new IllegalArgumentException("Unexpected binary message type " + payload[2] + " on this topic");
+        }
+        if (payload.length != expectedLength) {
+            throw new IllegalArgumentException("Binary payload must be " + expectedLength + " bytes, got " + payload.length);
+        }
+    }
+
+    private static byte[] header(byte version, byte type, int length) {
+        byte[] payload = new byte[length];
+        payload[0] = MAGIC;
+        payload[1] = version;
+        payload[2] = type;
+        return payload;
+    }
+
+    private static void checkLevel(String wasteType, Long level) {
+        if (level != null && (level < 0 || level > MAX_LEVEL)) {
+            throw new IllegalArgumentException(wasteType + " level must be between 0 and " + MAX_LEVEL + ", got " + level);
+        }
+    }
+
+    private static Long readLevel(byte value) {
+        int level = value & 0xFF;
+        return level == LEVEL_NOT_REPORTED ? null : (long) level;
+    }
+
+    private static byte writeLevel(Long level) {
+        if (level == null) {
+            return (byte) LEVEL_NOT_REPORTED;
+        }
+        if (level < 0 || level >= LEVEL_NOT_REPORTED) {
+            throw new IllegalArgumentException("Level out of range for binary encoding: " + level);
+        }
+        return (byte) level.intValue();
+    }
+
+    /** A missing value is sent as 0xFFFFFFFF; {@code divisor} scales e.g. millis down to seconds. */
+    private static long writeUnsigned(Long value, long divisor) {
+        if (value == null) {
+            return UNSIGNED_NOT_REPORTED;
+        }
+        long scaled = value / divisor;
+        if (scaled < 0 || scaled >= UNSIGNED_NOT_REPORTED) {
+            throw new IllegalArgumentException("Value out of range for binary encoding: " + value);
+        }
+        return scaled;
+    }
+
+    private static Long readUnsigned(byte[] payload, int offset, long multiplier) {
+        long value = Integer.toUnsignedLong(readInt(payload, offset));
+        return value == UNSIGNED_NOT_REPORTED ? null : value * multiplier;
+    }
+
+    private static int readInt(byte[] payload, int offset) {
+        return ((payload[offset] & 0xFF) << 24)
+                | ((payload[offset + 1] & 0xFF) << 16)
+                | ((payload[offset + 2] & 0xFF) << 8)
+                | (payload[offset + 3] & 0xFF);
+    }
+
+    private static void writeInt(byte[] payload, int offset, int value) {
+        payload[offset] = (byte) (value >>> 24);
+        payload[offset + 1] = (byte) (value >>> 16);
+        payload[offset + 2] = (byte) (value >>> 8);
+        payload[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,57 @@
+package com.smart_wastebackend.mqtt;
+
+import com.smart_wastebackend.enums.IngestStage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage timing of the MQTT → Mongo → WebSocket pipeline as one timer,
+ * {@code smartwaste.ingest.stage}, tagged with the stage, the topic type the message came in on
+ * ({@code status}, {@code location}, ...) and the outcome of the stage ({@code ok}, {@code invalid},
+ * {@code unchanged}, ...). The count of each series doubles as an outcome counter.
+ * <p>
+ * Timers are created on first use and cached, so recording costs one map lookup.
+ */
+@Component
+public class IngestMetrics {
+
+    public static final String TOPIC_STATUS = "status";
+    public static final String TOPIC_LOCATION = "location";
+    public static final String TOPIC_NOTIFICATION = "notification";
+    public static final String TOPIC_BIN_CHANGED = "bin_changed";
+    public static final String TOPIC_UNKNOWN = "unknown";
+
+    public static final String OK = "ok";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public IngestMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Record a stage that started at {@code startNanos} ({@link System#nanoTime()}) and just ended. */
+    public void record(IngestStage stage, String topicType, String outcome, long startNanos) {
+        timer(stage, topicType, outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(IngestStage stage, String topicType, String outcome) {
+        String key = stage.getTag() + '|' + topicType + '|' + outcome;
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder("smartwaste.ingest.stage")
+                    .description("Time spent in one stage of the MQTT ingest pipeline")
+                    .tag("stage", stage.getTag())
+                    .tag("topic", topicType)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,164 @@
+package com.smart_wastebackend.mqtt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Identity of this backend node and the bins it ingests.
+ * <p>
+ * Bins are split into {@code ingest.partitions.count} partitions by a hash of the bin id, and each
+ * node owns the partitions listed in {@code ingest.partitions.owned} (all of them by default). A
+ * node only processes readings of bins it owns and only keeps their per-bin state (levels, dedup
+ * watermarks, forecasts) in memory, so several nodes can share one broker as competing consumers
+ * as long as every partition is owned by exactly one of them. {@link com.smart_wastebackend.service.IngestNodeRegistry} checks
+ * that and how evenly the traffic is spread.
+ */
+@Component
+@Slf4j
+public class IngestNode {
+
+    private final String instanceId;
+    private final int partitionCount;
+    private final BitSet owned;
+    private final List<String> ownedNames;
+    private final Counter[] partitionMessages;
+
+    @Autowired
+    public IngestNode(
+            MeterRegistry meterRegistry,
+            @Value("${mqtt.instance-id:}") String instanceId,
+            @Value("${ingest.partitions.count:1}") int partitionCount,
+            @Value("${ingest.partitions.owned:}") String ownedSpec
+    ) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("ingest.partitions.count must be positive");
+        }
+        // Defaults to host name + pid, so two nodes on one box never take over each other's session
+        this.instanceId = instanceId == null || instanceId.isBlank() ? defaultInstanceId() : instanceId;
+        this.partitionCount = partitionCount;
+        this.owned = parseOwned(ownedSpec, partitionCount);
+
+        List<String> names = new ArrayList<>();
+        this.partitionMessages = new Counter[partitionCount];
+        for (int p = owned.nextSetBit(0); p >= 0; p = owned.nextSetBit(p + 1)) {
+            names.add(String.valueOf(p));
+            partitionMessages[p] = Counter.builder("smartwaste.ingest.partition.messages")
+                    .description("Messages of owned bins handed to the ingest lanes, per partition")
+                    .tag("partition", String.valueOf(p))
+                    .register(meterRegistry);
+        }
+        this.ownedNames = Collections.unmodifiableList(names);
+        Gauge.builder("smartwaste.ingest.partitions.owned", ownedNames, List::size)
+                .description("Bin partitions ingested by this node")
+                .register(meterRegistry);
+
+        log.info("Ingest node {} owns partitions {} of {}", this.instanceId, ownedNames, partitionCount);
+    }
+
+    /**
+     * Partition of a bin. {@link String#hashCode()} is fixed by the language spec, so every node and
+     * the simulator agree; it is mixed first because the ingest lanes take the plain hash modulo
+     * the lane count, and without mixing a node owning the even partitions would only use even lanes.
+     */
+    public static int partitionOf(String binId, int partitionCount) {
+        int h = binId.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, partitionCount);
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    public int partitionCount() {
+        return partitionCount;
+    }
+
+    /** Owned partition numbers as strings, ascending, e.g. for subscribing to {@code {partition}} topics. */
+    public List<String> ownedPartitions() {
+        return ownedNames;
+    }
+
+    /** Whether this node owns every partition, i.e. runs alone. */
+    public boolean ownsAll() {
+        return ownedNames.size() == partitionCount;
+    }
+
+    public int partitionOf(String binId) {
+        return partitionOf(binId, partitionCount);
+    }
+
+    public boolean owns(String binId) {
+        return owned.get(partitionOf(binId));
+    }
+
+    /** Count a message of an owned bin towards its partition. */
+    public void recordMessage(String binId) {
+        Counter counter = partitionMessages[partitionOf(binId)];
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /** Messages counted by {@link #recordMessage} since startup, over all owned partitions. */
+    public long messages() {
+        long total = 0;
+        for (Counter counter : partitionMessages) {
+            if (counter != null) {
+                total += (long) counter.count();
+            }
+        }
+        return total;
+    }
+
+    // "0-3,6" -> {0, 1, 2, 3, 6}; blank -> every partition
+    static BitSet parseOwned(String spec, int partitionCount) {
+        BitSet owned = new BitSet(partitionCount);
+        if (spec == null || spec.isBlank()) {
+            owned.set(0, partitionCount);
+            return owned;
+        }
+
+        for (String part : spec.split(",")) {
+            String range = part.trim();
+            int dash = range.indexOf('-');
+            try {
+                int from = Integer.parseInt((dash < 0 ? range : range.substring(0, dash)).trim());
+                int to = dash < 0 ? from : Integer.parseInt(range.substring(dash + 1).trim());
+                if (from < 0 || to >= partitionCount || from > to) {
+                    throw new IllegalArgumentException("Partition range '" + range
+                            + "' is outside 0.." + (partitionCount - 1));
+                }
+                owned.set(from, to + 1);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid ingest.partitions.owned entry '" + range + "'");
+            }
+        }
+        return owned;
+    }
+
+    private static String defaultInstanceId() {
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + ProcessHandle.current().pid();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString().substring(0, 8);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.smart_wastebackend.mqtt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only file of raw inbound MQTT messages, used by {@link MqttTrafficRecorder} and {@link MqttReplayer}.
+ * <pre>
+ *   header  "SWMQ" + format version byte (1)
+ *   record  int64 receive time (epoch millis)
+ *           int32 topic length, topic UTF-8 bytes
+ *           int32 payload length, payload bytes
+ * </pre>
+ * All numbers are big-endian. A truncated last record (e.g. after a crash) ends the file.
+ */
+final class MqttRecordingFile {
+
+    private static final byte[] MAGIC = "SWMQ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+    private static final int MAX_FIELD_LENGTH = 16 * 1024 * 1024;
+
+    private MqttRecordingFile() {
+    }
+
+    record Entry(long receivedAt, String topic, byte[] payload) {
+    }
+
+    static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+
+        Writer(Path path) throws IOException {
+            boolean fresh = !Files.exists(path) || Files.size(path) == 0;
+            OutputStream file = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            this.out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024));
+            if (fresh) {
+                out.write(MAGIC);
+                out.writeByte(VERSION);
+            }
+        }
+
+        void append(long receivedAt, String topic, byte[] payload) throws IOException {
+            byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+            out.writeLong(receivedAt);
+            out.writeInt(topicBytes.length);
+            out.write(topicBytes);
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+
+        Reader(Path path) throws IOException {
+            InputStream file = Files.newInputStream(path);
+            this.in = new DataInputStream(new BufferedInputStream(file, 64 * 1024));
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readByte() != VERSION) {
+                in.close();
+                throw new IOException("Not an MQTT recording: " + path);
+            }
+        }
+
+        /** Next entry, or null at the end of the file. */
+        Entry next() throws IOException {
+            try {
+                long receivedAt = in.readLong();
+                String topic = new String(readField(), StandardCharsets.UTF_8);
+                return new Entry(receivedAt, topic, readField());
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        private byte[] readField() throws IOException {
+            int length = in.readInt();
+            if (length < 0 || length > MAX_FIELD_LENGTH) {
+                throw new IOException("Corrupt MQTT recording: field length " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
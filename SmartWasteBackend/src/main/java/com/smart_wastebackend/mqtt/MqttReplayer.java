@@ -0,0 +1,287 @@
+package com.smart_wastebackend.mqtt;
+
+import com.smart_wastebackend.dto.ReplayReportDTO;
+import com.smart_wastebackend.enums.ReplayStatus;
+import com.smart_wastebackend.enums.ReplayTarget;
+import com.smart_wastebackend.service.BinHistoryService;
+import com.smart_wastebackend.service.BinWriteBehindBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a recording made by {@link MqttTrafficRecorder} through the ingest pipeline, either
+ * via the broker or straight into {@code mqttInboundChannel}, at the recorded pace times
+ * {@code speed} (0 = as fast as possible).
+ * <p>
+ * After the last message it waits for the ingest lanes to drain, flushes the write-behind and
+ * history buffers and reports throughput, ingest latency and the Mongo writes issued meanwhile
+ * (from the driver command metrics). Replays run on their own thread, one at a time, and their
+ * progress can be polled. CHANNEL replays feed the live pipeline, so the replayer only exists
+ * with {@code replay.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "replay.enabled", havingValue = "true")
+@Slf4j
+public class MqttReplayer {
+
+    private static final Set<String> WRITE_COMMANDS = Set.of("insert", "update", "delete", "findAndModify");
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MessageChannel mqttInboundChannel;
+    private final MqttPahoClientFactory clientFactory;
+    private final MqttTrafficRecorder recorder;
+    private final PartitionedIngestExecutor ingestExecutor;
+    private final BinWriteBehindBuffer binWriteBehindBuffer;
+    private final BinHistoryService binHistoryService;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mqtt-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Replay current;
+
+    @Value("${mqtt.broker}")
+    private String brokerUrl;
+
+    @Value("${mqtt.client-id}")
+    private String clientId;
+
+    @Value("${replay.drain-timeout-ms:60000}")
+    private long drainTimeoutMs;
+
+    public MqttReplayer(
+            @Qualifier("mqttInboundChannel") MessageChannel mqttInboundChannel,
+            MqttPahoClientFactory clientFactory,
+            MqttTrafficRecorder recorder,
+            PartitionedIngestExecutor ingestExecutor,
+            BinWriteBehindBuffer binWriteBehindBuffer,
+            BinHistoryService binHistoryService,
+            MeterRegistry meterRegistry
+    ) {
+        this.mqttInboundChannel = mqttInboundChannel;
+        this.clientFactory = clientFactory;
+        this.recorder = recorder;
+        this.ingestExecutor = ingestExecutor;
+        this.binWriteBehindBuffer = binWriteBehindBuffer;
+        this.binHistoryService = binHistoryService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Start replaying {@code fileName} in the background; fails fast if that cannot start. */
+    public synchronized ReplayReportDTO start(String fileName, ReplayTarget target, double speed) {
+        if (recorder.isRecording()) {
+            throw new IllegalStateException("Stop recording before replaying, the replay would be recorded too");
+        }
+        Replay running = current;
+        if (running != null && running.status == ReplayStatus.RUNNING) {
+            throw new IllegalStateException("Replay " + running.id + " is already running");
+        }
+        Path path = recorder.resolve(fileName);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("No recording named " + fileName);
+        }
+
+        Replay replay = new Replay(fileName, target, speed);
+        current = replay;
+        executor.execute(() -> run(replay, path));
+        return replay.toDTO();
+    }
+
+    /** Progress of the latest replay, if one was started since boot. */
+    public Optional<ReplayReportDTO> latest() {
+        Replay replay = current;
+        return replay != null ? Optional.of(replay.toDTO()) : Optional.empty();
+    }
+
+    private void run(Replay replay, Path path) {
+        IMqttClient client = null;
+        try {
+            if (replay.target == ReplayTarget.BROKER) {
+                client = clientFactory.getClientInstance(brokerUrl, clientId + "_replay_" + UUID.randomUUID().toString().substring(0, 8));
+                client.connect(clientFactory.getConnectionOptions());
+            }
+
+            Timer latency = meterRegistry.find("smartwaste.ingest.latency").timer();
+            long processedBefore = latency != null ? latency.count() : 0;
+            double latencyBefore = latency != null ? latency.totalTime(TimeUnit.MILLISECONDS) : 0;
+            double writesBefore = mongoWrites();
+
+            long start = System.nanoTime();
+            send(path, replay, client);
+            awaitDrained(latency);
+            binWriteBehindBuffer.flush();
+            binHistoryService.flush();
+            long elapsedNanos = System.nanoTime() - start;
+
+            long processed = latency != null ? latency.count() - processedBefore : 0;
+            double seconds = elapsedNanos / 1e9;
+            replay.processed = processed;
+            replay.durationMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            replay.throughputPerSecond = seconds > 0 ? replay.sent.get() / seconds : 0;
+            replay.meanLatencyMs = processed > 0 ? (latency.totalTime(TimeUnit.MILLISECONDS) - latencyBefore) / processed : 0;
+            replay.p50LatencyMs = percentile(latency, 0.5);
+            replay.p99LatencyMs = percentile(latency, 0.99);
+            replay.mongoWrites = (long) (mongoWrites() - writesBefore);
+            replay.finish(ReplayStatus.COMPLETED, null);
+            log.info("Replayed {} messages from {} to {} in {} ms ({} msg/s)",
+                    replay.sent.get(), replay.file, replay.target, replay.durationMs, Math.round(replay.throughputPerSecond));
+        } catch (IOException | MqttException | RuntimeException e) {
+            replay.finish(ReplayStatus.FAILED, e.getMessage());
+            log.error("Replay {} of {} failed after {} messages: {}", replay.id, replay.file, replay.sent.get(), e.getMessage());
+        } finally {
+            disconnectQuietly(client);
+        }
+    }
+
+    private void send(Path path, Replay replay, IMqttClient client) throws IOException, MqttException {
+        long firstRecorded = -1;
+        long startNanos = System.nanoTime();
+
+        try (MqttRecordingFile.Reader reader = new MqttRecordingFile.Reader(path)) {
+            MqttRecordingFile.Entry entry;
+            while ((entry = reader.next()) != null) {
+                if (firstRecorded < 0) {
+                    firstRecorded = entry.receivedAt();
+                }
+                if (replay.speed > 0) {
+                    long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(entry.receivedAt() - firstRecorded) / replay.speed);
+                    long wait = dueNanos - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+
+                if (replay.target == ReplayTarget.BROKER) {
+                    client.publish(entry.topic(), entry.payload(), 1, false);
+                } else {
+                    mqttInboundChannel.send(MessageBuilder.withPayload(entry.payload())
+                            .setHeader(MqttHeaders.RECEIVED_TOPIC, entry.topic())
+                            .build());
+                }
+                replay.sent.incrementAndGet();
+            }
+        }
+    }
+
+    /** Wait until the lanes are empty and no message has finished for a second, or the timeout hits. */
+    private void awaitDrained(Timer latency) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        long lastCount = -1;
+        long lastChange = System.nanoTime();
+
+        while (System.nanoTime() < deadline) {
+            long count = latency != null ? latency.count() : 0;
+            if (count != lastCount) {
+                lastCount = count;
+                lastChange = System.nanoTime();
+            } else if (ingestExecutor.pendingTasks() == 0 && System.nanoTime() - lastChange > IDLE_NANOS) {
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        log.warn("Replay drain timed out after {} ms with {} messages pending", drainTimeoutMs, ingestExecutor.pendingTasks());
+    }
+
+    private static void disconnectQuietly(IMqttClient client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            if (client.isConnected()) {
+                client.disconnect();
+            }
+            client.close();
+        } catch (MqttException e) {
+            log.warn("Could not close the replay MQTT client: {}", e.getMessage());
+        }
+    }
+
+    private double mongoWrites() {
+        return meterRegistry.find("mongodb.driver.commands").timers().stream()
+                .filter(timer -> WRITE_COMMANDS.contains(timer.getId().getTag("command")))
+                .mapToDouble(Timer::count)
+                .sum();
+    }
+
+    private static Double percentile(Timer latency, double percentile) {
+        if (latency == null) {
+            return null;
+        }
+        for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static final class Replay {
+        private final String id = UUID.randomUUID().toString();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final String file;
+        private final ReplayTarget target;
+        private final double speed;
+        private final AtomicLong sent = new AtomicLong();
+        private volatile ReplayStatus status = ReplayStatus.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private volatile Long processed;
+        private volatile Long durationMs;
+        private volatile Double throughputPerSecond;
+        private volatile Double meanLatencyMs;
+        private volatile Double p50LatencyMs;
+        private volatile Double p99LatencyMs;
+        private volatile Long mongoWrites;
+
+        private Replay(String file, ReplayTarget target, double speed) {
+            this.file = file;
+            this.target = target;
+            this.speed = speed;
+        }
+
+        void finish(ReplayStatus finalStatus, String failure) {
+            error = failure;
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        ReplayReportDTO toDTO() {
+            return new ReplayReportDTO(id, status, startedAt, finishedAt, file, target, speed, sent.get(), processed,
+                    durationMs, throughputPerSecond, meanLatencyMs, p50LatencyMs, p99LatencyMs, mongoWrites, error);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.smart_wastebackend.mqtt;
+
+/**
+ * A handler for one family of MQTT topics. Every bean implementing this interface is subscribed
+ * and routed to automatically by {@link MqttTopicRouter}, so adding a new topic type only needs a
+ * new handler bean.
+ */
+public interface MqttTopicHandler {
+
+    /**
+     * MQTT topic filter handled by this bean. Besides the standard {@code +} and {@code #}
+     * wildcards, a single level may be written as {@code {name}} to capture it as a path
+     * variable, e.g. {@code smartwaste/bin/{binId}/status}.
+     */
+    String topicPattern();
+
+    /** Short name of the topic family, used as the {@code topic} tag of the ingest metrics. */
+    String topicType();
+
+    /** Called on the ingest lane of the message; {@code payload} is the raw MQTT payload. */
+    void handle(MqttTopicMatch match, byte[] payload);
+}
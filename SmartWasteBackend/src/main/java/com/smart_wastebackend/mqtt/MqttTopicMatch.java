@@ -0,0 +1,35 @@
+package com.smart_wastebackend.mqtt;
+
+/** Result of routing a concrete topic: the handler to call and the captured path variables. */
+public final class MqttTopicMatch {
+
+    private final String topic;
+    private final MqttTopicHandler handler;
+    private final String[] variableNames;
+    private final String[] variableValues;
+
+    MqttTopicMatch(String topic, MqttTopicHandler handler, String[] variableNames, String[] variableValues) {
+        this.topic = topic;
+        this.handler = handler;
+        this.variableNames = variableNames;
+        this.variableValues = variableValues;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public MqttTopicHandler handler() {
+        return handler;
+    }
+
+    /** Value of the {@code {name}} level of the pattern, or {@code null} if the pattern has none. */
+    public String variable(String name) {
+        for (int i = 0; i < variableNames.length; i++) {
+            if (name.equals(variableNames[i])) {
+                return variableValues[i];
+            }
+        }
+        return null;
+    }
+}
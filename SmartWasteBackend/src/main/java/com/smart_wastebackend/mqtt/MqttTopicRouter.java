@@ -0,0 +1,199 @@
+package com.smart_wastebackend.mqtt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Routes concrete MQTT topics to {@link MqttTopicHandler} beans.
+ * <p>
+ * All handler patterns are compiled once into a trie of topic levels. Matching walks the topic
+ * string by index, comparing levels in place with {@link String#regionMatches}, so routing a
+ * message compiles no regex and splits no strings; the only allocations are the captured
+ * variable values. Literal levels win over {@code +}, which wins over {@code #}.
+ */
+@Component
+@Slf4j
+public class MqttTopicRouter {
+
+    private final Node root = new Node();
+    private final List<String> topicFilters = new ArrayList<>();
+    private final List<String> patterns = new ArrayList<>();
+    private int maxVariables;
+
+    public MqttTopicRouter(List<MqttTopicHandler> handlers) {
+        for (MqttTopicHandler handler : handlers) {
+            register(handler);
+        }
+    }
+
+    /** Subscription filters for all registered handlers, with {@code {name}} levels turned into {@code +}. */
+    public String[] topicFilters() {
+        return topicFilters.toArray(new String[0]);
+    }
+
+    /**
+     * Like {@link #topicFilters()}, but a {@code {variable}} level is subscribed to once per value
+     * instead of as {@code +}, e.g. once per owned partition.
+     */
+    public String[] topicFilters(String variable, List<String> values) {
+        String placeholder = "{" + variable + "}";
+        List<String> filters = new ArrayList<>();
+        for (int i = 0; i < patterns.size(); i++) {
+            int level = Arrays.asList(patterns.get(i).split("/", -1)).indexOf(placeholder);
+            if (level < 0) {
+                filters.add(topicFilters.get(i));
+                continue;
+            }
+            String[] levels = topicFilters.get(i).split("/", -1);
+            for (String value : values) {
+                levels[level] = value;
+                filters.add(String.join("/", levels));
+            }
+        }
+        return filters.toArray(new String[0]);
+    }
+
+    /** Find the handler for {@code topic}, or {@code null} if no pattern matches it. */
+    public MqttTopicMatch match(String topic) {
+        int[] bounds = new int[maxVariables * 2];
+        Route route = match(root, topic, 0, bounds, 0);
+        if (route == null) {
+            return null;
+        }
+
+        String[] values = new String[route.variableNames.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = topic.substring(bounds[2 * i], bounds[2 * i + 1]);
+        }
+        return new MqttTopicMatch(topic, route.handler, route.variableNames, values);
+    }
+
+    private Route match(Node node, String topic, int start, int[] bounds, int depth) {
+        if (start > topic.length()) {
+            // Every level consumed; "a/#" also matches "a" itself
+            return node.route != null ? node.route : node.multiLevel;
+        }
+
+        int end = topic.indexOf('/', start);
+        if (end < 0) {
+            end = topic.length();
+        }
+
+        Node literal = node.literalChild(topic, start, end - start);
+        if (literal != null) {
+            Route route = match(literal, topic, end + 1, bounds, depth);
+            if (route != null) {
+                return route;
+            }
+        }
+
+        if (node.wildcard != null) {
+            bounds[2 * depth] = start;
+            bounds[2 * depth + 1] = end;
+            Route route = match(node.wildcard, topic, end + 1, bounds, depth + 1);
+            if (route != null) {
+                return route;
+            }
+        }
+
+        return node.multiLevel;
+    }
+
+    private void register(MqttTopicHandler handler) {
+        String pattern = handler.topicPattern();
+        String[] levels = pattern.split("/", -1);
+        List<String> variableNames = new ArrayList<>();
+        StringBuilder filter = new StringBuilder(pattern.length());
+
+        Node node = root;
+        for (int i = 0; i < levels.length; i++) {
+            String level = levels[i];
+            if (i > 0) {
+                filter.append('/');
+            }
+
+            if (level.equals("#")) {
+                if (i != levels.length - 1) {
+                    throw new IllegalArgumentException("'#' must be the last level of topic pattern: " + pattern);
+                }
+                if (node.multiLevel != null) {
+                    throw duplicate(pattern, node.multiLevel);
+                }
+                node.multiLevel = new Route(handler, variableNames.toArray(new String[0]));
+                filter.append('#');
+                addFilter(filter.toString(), handler, variableNames);
+                return;
+            }
+
+            if (level.equals("+") || (level.startsWith("{") && level.endsWith("}"))) {
+                variableNames.add(level.equals("+") ? null : level.substring(1, level.length() - 1));
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                node = node.wildcard;
+                filter.append('+');
+            } else {
+                node = node.literalChildOrCreate(level);
+                filter.append(level);
+            }
+        }
+
+        if (node.route != null) {
+            throw duplicate(pattern, node.route);
+        }
+        node.route = new Route(handler, variableNames.toArray(new String[0]));
+        addFilter(filter.toString(), handler, variableNames);
+    }
+
+    private void addFilter(String filter, MqttTopicHandler handler, List<String> variableNames) {
+        topicFilters.add(filter);
+        patterns.add(handler.topicPattern());
+        maxVariables = Math.max(maxVariables, variableNames.size());
+        log.info("Registered MQTT topic handler {} for {}", handler.getClass().getSimpleName(), handler.topicPattern());
+    }
+
+    private static IllegalStateException duplicate(String pattern, Route existing) {
+        return new IllegalStateException("Topic pattern " + pattern + " is already handled by "
+                + existing.handler.getClass().getSimpleName());
+    }
+
+    private record Route(MqttTopicHandler handler, String[] variableNames) {
+    }
+
+    private static final class Node {
+
+        private String[] literalKeys = new String[0];
+        private Node[] literalChildren = new Node[0];
+        private Node wildcard;
+        private Route route;
+        private Route multiLevel;
+
+        Node literalChild(String topic, int start, int length) {
+            for (int i = 0; i < literalKeys.length; i++) {
+                String key = literalKeys[i];
+                if (key.length() == length && topic.regionMatches(start, key, 0, length)) {
+                    return literalChildren[i];
+                }
+            }
+            return null;
+        }
+
+        Node literalChildOrCreate(String level) {
+            for (int i = 0; i < literalKeys.length; i++) {
+                if (literalKeys[i].equals(level)) {
+                    return literalChildren[i];
+                }
+            }
+            Node child = new Node();
+            literalKeys = Arrays.copyOf(literalKeys, literalKeys.length + 1);
+            literalChildren = Arrays.copyOf(literalChildren, literalChildren.length + 1);
+            literalKeys[literalKeys.length - 1] = level;
+            literalChildren[literalChildren.length - 1] = child;
+            return child;
+        }
+    }
+}
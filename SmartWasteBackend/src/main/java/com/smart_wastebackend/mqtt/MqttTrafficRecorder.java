@@ -0,0 +1,149 @@
+package com.smart_wastebackend.mqtt;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records raw inbound MQTT messages (topic, payload, receive time) to an append-only file in
+ * {@code replay.directory}, for later replay by {@link MqttReplayer}.
+ * <p>
+ * Off by default; started from the admin replay endpoint or at boot with {@code replay.record-file}.
+ * The Paho callback thread only offers each message to a bounded queue; a writer thread appends
+ * them and flushes whenever the queue runs dry for a second. Messages that find the queue full
+ * are dropped from the recording (not from ingest) and counted.
+ */
+@Component
+@Slf4j
+public class MqttTrafficRecorder {
+
+    private static final long IDLE_FLUSH_MS = 1000;
+
+    private final Path directory;
+    private final BlockingQueue<MqttRecordingFile.Entry> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread writerThread;
+    private volatile boolean recording;
+    private volatile String fileName;
+    private volatile long recorded;
+
+    @Value("${replay.record-file:}")
+    private String recordOnStartup;
+
+    public MqttTrafficRecorder(
+            @Value("${replay.directory:replays}") String directory,
+            @Value("${replay.record-queue-capacity:10000}") int queueCapacity
+    ) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    void startIfConfigured() throws IOException {
+        if (recordOnStartup != null && !recordOnStartup.isBlank()) {
+            start(recordOnStartup);
+        }
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public String currentFile() {
+        return fileName;
+    }
+
+    /** Start appending to {@code name} inside the replay directory. */
+    public synchronized void start(String name) throws IOException {
+        // A writer that stopped on an I/O error leaves a dead thread behind, which does not count
+        if (writerThread != null && writerThread.isAlive()) {
+            throw new IllegalStateException("Already recording to " + fileName);
+        }
+        Path path = resolve(name);
+        Files.createDirectories(directory);
+        MqttRecordingFile.Writer writer = new MqttRecordingFile.Writer(path);
+        queue.clear();
+        fileName = name;
+        recorded = 0;
+        dropped.set(0);
+        recording = true;
+
+        writerThread = new Thread(() -> write(writer), "mqtt-recorder");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Recording inbound MQTT messages to {}", path);
+    }
+
+    /** Stop recording once the queued messages are written; returns the number of messages written. */
+    public synchronized long stop() {
+        Thread thread = writerThread;
+        if (thread == null) {
+            return 0;
+        }
+        recording = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+        log.info("Stopped recording to {} after {} messages ({} dropped)", fileName, recorded, dropped.get());
+        return recorded;
+    }
+
+    public void record(String topic, byte[] payload) {
+        if (!recording) {
+            return;
+        }
+        if (!queue.offer(new MqttRecordingFile.Entry(System.currentTimeMillis(), topic, payload))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+
+    /** A file name inside the replay directory; anything that escapes it is rejected. */
+    Path resolve(String name) {
+        Path path = directory.resolve(name).normalize();
+        if (!path.startsWith(directory) || path.equals(directory)) {
+            throw new IllegalArgumentException("Invalid recording file name: " + name);
+        }
+        return path;
+    }
+
+    // Runs on the writer thread until stop() and the queue is empty
+    private void write(MqttRecordingFile.Writer writer) {
+        try (writer) {
+            while (recording || !queue.isEmpty()) {
+                MqttRecordingFile.Entry entry = queue.poll(IDLE_FLUSH_MS, TimeUnit.MILLISECONDS);
+                if (entry == null) {
+                    writer.flush();
+                    continue;
+                }
+                writer.append(entry.receivedAt(), entry.topic(), entry.payload());
+                recorded++;
+            }
+        } catch (IOException e) {
+            log.error("Recording failed, stopping: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            recording = false;
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.smart_wastebackend.mqtt;
+
+import com.smart_wastebackend.enums.IngestOverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs MQTT ingest work on N single-threaded lanes.
+ * <p>
+ * Work is assigned to a lane by hashing its partition key (the bin id), so all messages of one
+ * bin are processed in arrival order while different bins are processed in parallel. Each lane
+ * has a bounded queue; what happens when it is full is decided by {@link IngestOverflowPolicy}.
+ * <p>
+ * With {@link IngestOverflowPolicy#DROP_OLDEST_PER_BIN} a message whose coalesce key (its topic)
+ * already has a message waiting in the lane replaces that message instead of taking a new slot:
+ * only the latest level of a bin matters, so a backlog during a Mongo hiccup holds at most one
+ * message per bin and topic. If the queue is still full of distinct bins the caller blocks.
+ */
+@Component
+@Slf4j
+public class PartitionedIngestExecutor {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final List<Map<String, LaneTask>> queuedByKey;
+    private final Timer[] laneLag;
+    private final Counter overflowDrops;
+    private final Counter supersededDrops;
+    private final IngestOverflowPolicy overflowPolicy;
+
+    public PartitionedIngestExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${ingest.lanes.count:4}") int laneCount,
+            @Value("${ingest.lanes.queue-capacity:1000}") int queueCapacity,
+            @Value("${ingest.lanes.overflow-policy:DROP_OLDEST_PER_BIN}") IngestOverflowPolicy overflowPolicy
+    ) {
+        if (laneCount < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Ingest lane count and queue capacity must be positive");
+        }
+
+        this.overflowPolicy = overflowPolicy;
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        this.queuedByKey = new ArrayList<>(laneCount);
+        this.laneLag = new Timer[laneCount];
+        this.overflowDrops = Counter.builder("smartwaste.ingest.lane.dropped")
+                .description("Messages discarded before processing")
+                .tag("policy", overflowPolicy.name())
+                .tag("reason", "overflow")
+                .register(meterRegistry);
+        this.supersededDrops = Counter.builder("smartwaste.ingest.lane.dropped")
+                .description("Messages discarded before processing")
+                .tag("policy", overflowPolicy.name())
+                .tag("reason", "superseded")
+                .register(meterRegistry);
+
+        for (int i = 0; i < laneCount; i++) {
+            String lane = String.valueOf(i);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "mqtt-ingest-lane-" + lane);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    rejectionHandler()
+            );
+            lanes[i] = executor;
+            queuedByKey.add(new ConcurrentHashMap<>());
+
+            Gauge.builder("smartwaste.ingest.lane.queue.depth", executor, e -> e.getQueue().size())
+                    .description("Messages waiting in the lane queue")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            laneLag[i] = Timer.builder("smartwaste.ingest.lane.lag")
+                    .description("Time a message waited in its lane before processing started")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+        }
+
+        log.info("MQTT ingest executor started with {} lanes (capacity {}, overflow policy {})",
+                laneCount, queueCapacity, overflowPolicy);
+    }
+
+    /** Run {@code work} on the lane owning {@code partitionKey}, after any earlier work for the same key. */
+    public void execute(String partitionKey, Runnable work) {
+        execute(partitionKey, null, work);
+    }
+
+    /**
+     * Like {@link #execute(String, Runnable)}, but under {@link IngestOverflowPolicy#DROP_OLDEST_PER_BIN}
+     * {@code work} replaces any still-queued work with the same {@code coalesceKey}.
+     */
+    public void execute(String partitionKey, String coalesceKey, Runnable work) {
+        int lane = Math.floorMod(partitionKey.hashCode(), lanes.length);
+
+        if (coalesceKey == null || overflowPolicy != IngestOverflowPolicy.DROP_OLDEST_PER_BIN) {
+            lanes[lane].execute(new LaneTask(lane, null, work));
+            return;
+        }
+
+        LaneTask[] created = new LaneTask[1];
+        queuedByKey.get(lane).compute(coalesceKey, (key, queued) -> {
+            if (queued != null && queued.replace(work)) {
+                return queued;
+            }
+            created[0] = new LaneTask(lane, key, work);
+            return created[0];
+        });
+
+        if (created[0] == null) {
+            supersededDrops.increment();
+        } else {
+            lanes[lane].execute(created[0]);
+        }
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /** Work queued or running on any lane; zero once all accepted messages have been processed. */
+    public int pendingTasks() {
+        int pending = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            pending += lane.getQueue().size() + lane.getActiveCount();
+        }
+        return pending;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Ingest lane did not drain in time, {} messages discarded", lane.getQueue().size());
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    private RejectedExecutionHandler rejectionHandler() {
+        return (runnable, executor) -> {
+            if (executor.isShutdown()) {
+                discard(runnable);
+                return;
+            }
+
+            switch (overflowPolicy) {
+                case BLOCK, DROP_OLDEST_PER_BIN -> {
+                    try {
+                        executor.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        discard(runnable);
+                    }
+                }
+                case DROP_NEWEST -> discard(runnable);
+                case DROP_OLDEST -> {
+                    Runnable oldest = executor.getQueue().poll();
+                    if (oldest != null) {
+                        discard(oldest);
+                    }
+                    executor.execute(runnable);
+                }
+            }
+        };
+    }
+
+    private void discard(Runnable runnable) {
+        overflowDrops.increment();
+        if (runnable instanceof LaneTask task && task.coalesceKey != null) {
+            queuedByKey.get(task.lane).remove(task.coalesceKey, task);
+        }
+    }
+
+    private final class LaneTask implements Runnable {
+
+        private final int lane;
+        private final String coalesceKey;
+        private final AtomicReference<Runnable> work;
+        private final long enqueuedAt = System.nanoTime();
+
+        private LaneTask(int lane, String coalesceKey, Runnable work) {
+            this.lane = lane;
+            this.coalesceKey = coalesceKey;
+            this.work = new AtomicReference<>(work);
+        }
+
+        /** Swap in newer work; fails once the task has started running. */
+        boolean replace(Runnable newer) {
+            return work.getAndUpdate(current -> current == null ? null : newer) != null;
+        }
+
+        @Override
+        public void run() {
+            if (coalesceKey != null) {
+                queuedByKey.get(lane).remove(coalesceKey, this);
+            }
+            Runnable latest = work.getAndSet(null);
+            laneLag[lane].record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                latest.run();
+            } catch (Exception e) {
+                // Never let one bad message kill the lane thread
+                log.error("Error in MQTT ingest lane {}: {}", lane, e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.smart_wastebackend.mqtt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops redelivered and out-of-order status readings before they reach persistence.
+ * <p>
+ * Keeps one watermark per bin: the highest sequence number and reading time applied so far.
+ * {@link #check} only compares against the watermark; the caller advances it with {@link #accept}
+ * once the reading has been applied, so a reading that fails (unknown bin, Mongo error) is still
+ * accepted when the broker redelivers it.
+ * <p>
+ * A reading with the same sequence number is a QoS 1 redelivery; a lower one is stale. For firmware
+ * without a sequence number only an older timestamp is stale, and a reading with the same timestamp
+ * is a redelivery only if its payload is byte-for-byte the same, since the binary format has
+ * one-second resolution. Watermarks are forgotten after {@code ingest.dedup.window-ms} without
+ * traffic, and at most {@code ingest.dedup.max-bins} bins are tracked.
+ * <p>
+ * A bin that reboots starts counting from zero again. That is recognised when its sequence number
+ * goes down but its reading time goes up, or when it drops by more than {@code ingest.dedup.restart-gap}.
+ * Readings carrying neither field are always accepted.
+ */
+@Component
+@Slf4j
+public class TelemetryDeduplicator {
+
+    public enum Verdict { ACCEPTED, DUPLICATE, STALE }
+
+    private final Map<String, Watermark> watermarks = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final int maxBins;
+    private final long restartGap;
+    private final Counter duplicates;
+    private final Counter stale;
+
+    public TelemetryDeduplicator(
+            MeterRegistry meterRegistry,
+            @Value("${ingest.dedup.window-ms:600000}") long windowMs,
+            @Value("${ingest.dedup.max-bins:100000}") int maxBins,
+            @Value("${ingest.dedup.restart-gap:1000}") long restartGap
+    ) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBins = maxBins;
+        this.restartGap = restartGap;
+        this.duplicates = Counter.builder("smartwaste.ingest.dedup.dropped")
+                .description("Status readings dropped before persistence")
+                .tag("reason", "duplicate")
+                .register(meterRegistry);
+        this.stale = Counter.builder("smartwaste.ingest.dedup.dropped")
+                .description("Status readings dropped before persistence")
+                .tag("reason", "stale")
+                .register(meterRegistry);
+        Gauge.builder("smartwaste.ingest.dedup.tracked", watermarks, Map::size)
+                .description("Bins with a live dedup watermark")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks a reading against the bin's watermark without advancing it. Readings of one bin are
+     * handled on one ingest lane, so nothing can move the watermark between this and {@link #accept}.
+     */
+    public Verdict check(String binId, Long seq, Long timestamp, byte[] payload) {
+        if (seq == null && timestamp == null) {
+            return Verdict.ACCEPTED;
+        }
+
+        Watermark last = watermarks.get(binId);
+        if (last == null || System.nanoTime() - last.seenAt > windowNanos) {
+            return Verdict.ACCEPTED;
+        }
+
+        Verdict verdict = compare(last, seq == null ? -1 : seq, timestamp == null ? -1 : timestamp, payload);
+        switch (verdict) {
+            case DUPLICATE -> duplicates.increment();
+            case STALE -> stale.increment();
+            default -> { }
+        }
+        return verdict;
+    }
+
+    /** Advances the bin's watermark to a reading that passed {@link #check} and has been applied. */
+    public void accept(String binId, Long seq, Long timestamp, byte[] payload) {
+        if (seq == null && timestamp == null) {
+            return;
+        }
+
+        // The payload is only needed to tell same-second readings apart when there is no seq
+        Watermark watermark = new Watermark(seq == null ? -1 : seq, timestamp == null ? -1 : timestamp,
+                seq == null ? payload : null, System.nanoTime());
+        watermarks.compute(binId, (id, last) ->
+                last != null || watermarks.size() < maxBins ? watermark : null);
+    }
+
+    @Scheduled(fixedDelayString = "${ingest.dedup.window-ms:600000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int before = watermarks.size();
+        watermarks.values().removeIf(watermark -> now - watermark.seenAt > windowNanos);
+        int evicted = before - watermarks.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle dedup watermarks", evicted);
+        }
+    }
+
+    private Verdict compare(Watermark last, long seq, long timestamp, byte[] payload) {
+        if (seq >= 0 && last.seq >= 0) {
+            if (seq > last.seq) {
+                return Verdict.ACCEPTED;
+            }
+            if (seq == last.seq) {
+                return Verdict.DUPLICATE;
+            }
+            boolean restarted = (timestamp >= 0 && last.timestamp >= 0 && timestamp > last.timestamp)
+                    || last.seq - seq > restartGap;
+            return restarted ? Verdict.ACCEPTED : Verdict.STALE;
+        }
+
+        if (timestamp >= 0 && last.timestamp >= 0) {
+            if (timestamp < last.timestamp) {
+                return Verdict.STALE;
+            }
+            boolean redelivered = timestamp == last.timestamp && Arrays.equals(payload, last.payload);
+            return redelivered ? Verdict.DUPLICATE : Verdict.ACCEPTED;
+        }
+
+        // Firmware switched between reporting only seq and only time; nothing to compare
+        return Verdict.ACCEPTED;
+    }
+
+    private record Watermark(long seq, long timestamp, byte[] payload, long seenAt) {
+    }
+}
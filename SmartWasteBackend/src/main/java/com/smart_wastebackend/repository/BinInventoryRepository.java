@@ -3,7 +3,6 @@ package com.smart_wastebackend.repository;
 import com.smart_wastebackend.enums.BinStatusEnum;
 import com.smart_wastebackend.model.BinInventory;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -21,10 +20,6 @@ public interface BinInventoryRepository extends MongoRepository<BinInventory, St
     // CRITICAL METHOD - MUST BE HERE
     List<BinInventory> findByOwnerIdAndStatus(String ownerId, BinStatusEnum status);
 
-    // Merged from BinStatusRepository (querying embedded fields)
-    @Query("{'$or': [{'plasticLevel': {'$gt': ?0}}, {'paperLevel': {'$gt': ?0}}, {'glassLevel': {'$gt': ?0}}]}")
-    List<BinInventory> findBinsWithHighFillLevel(Long level);
-
     List<BinInventory> findByPlasticLevelGreaterThanEqual(Long threshold);
 
     List<BinInventory> findByPaperLevelGreaterThanEqual(Long threshold);
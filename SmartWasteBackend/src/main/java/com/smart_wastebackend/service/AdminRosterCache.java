@@ -0,0 +1,77 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.enums.UserRoleEnum;
+import com.smart_wastebackend.model.UserTable;
+import com.smart_wastebackend.repository.UserTableRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids of the admins, who get a copy of every fill level and maintenance request notification.
+ * <p>
+ * Loaded on first use and dropped whenever a user is saved or deleted through Spring Data, so
+ * role changes and new admins show up on the next notification. Changes made outside the app
+ * are picked up once the roster is older than {@code notifications.admin-roster.max-age-ms}.
+ */
+@Component
+@Slf4j
+public class AdminRosterCache extends AbstractMongoEventListener<UserTable> {
+
+    private final UserTableRepository userTableRepository;
+    // Bumped on every user change, so a load that raced with one is not kept
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Roster roster;
+
+    @Value("${notifications.admin-roster.max-age-ms:600000}")
+    private long maxAgeMs;
+
+    @Autowired
+    public AdminRosterCache(UserTableRepository userTableRepository) {
+        this.userTableRepository = userTableRepository;
+    }
+
+    public List<String> adminIds() {
+        Roster current = roster;
+        if (current != null && System.nanoTime() - current.loadedAt < TimeUnit.MILLISECONDS.toNanos(maxAgeMs)) {
+            return current.adminIds;
+        }
+
+        long loadVersion = version.get();
+        List<String> adminIds = userTableRepository.findByRole(UserRoleEnum.ROLE_ADMIN).stream()
+                .map(UserTable::getId)
+                .toList();
+        if (version.get() == loadVersion) {
+            roster = new Roster(adminIds, System.nanoTime());
+        }
+        log.debug("Loaded {} admins into the roster", adminIds.size());
+        return adminIds;
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        roster = null;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<UserTable> event) {
+        invalidate();
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<UserTable> event) {
+        invalidate();
+    }
+
+    private record Roster(List<String> adminIds, long loadedAt) {
+    }
+}
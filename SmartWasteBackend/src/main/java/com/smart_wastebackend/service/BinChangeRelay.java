@@ -0,0 +1,158 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.enums.BinChange;
+import com.smart_wastebackend.model.BinInventory;
+import com.smart_wastebackend.mqtt.IngestNode;
+import com.smart_wastebackend.repository.BinInventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.DisconnectedBufferOptions;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Optional;
+
+/**
+ * Keeps the in-memory state of a bin on the node that owns it in step with API changes made on
+ * other nodes.
+ * <p>
+ * Status, owner, location, collections and deletions go straight to Mongo on whichever node
+ * serves the request. When that node does not ingest the bin, {@link #changed} publishes the kind
+ * of change on {@code mqtt.bin-changed-topic}; the owner receives it on the bin's ingest lane, in
+ * order with its readings, and {@link #apply} re-reads the bin from Mongo. A node owning every
+ * partition never publishes and never connects.
+ */
+@Service
+@Slf4j
+public class BinChangeRelay {
+
+    private final IngestNode ingestNode;
+    private final MqttPahoClientFactory clientFactory;
+    private final BinInventoryRepository binInventoryRepository;
+    private final BinStateStore binStateStore;
+    private final BinWriteBehindBuffer binWriteBehindBuffer;
+    private final BinFillForecaster binFillForecaster;
+    private final Counter relayed;
+    private final Counter failures;
+
+    @Value("${mqtt.broker}")
+    private String brokerUrl;
+
+    @Value("${mqtt.client-id}")
+    private String clientId;
+
+    @Value("${mqtt.bin-changed-topic}")
+    private String changedTopic;
+
+    private volatile IMqttAsyncClient client;
+
+    @Autowired
+    public BinChangeRelay(
+            IngestNode ingestNode,
+            MqttPahoClientFactory clientFactory,
+            BinInventoryRepository binInventoryRepository,
+            BinStateStore binStateStore,
+            BinWriteBehindBuffer binWriteBehindBuffer,
+            BinFillForecaster binFillForecaster,
+            MeterRegistry meterRegistry
+    ) {
+        this.ingestNode = ingestNode;
+        this.clientFactory = clientFactory;
+        this.binInventoryRepository = binInventoryRepository;
+        this.binStateStore = binStateStore;
+        this.binWriteBehindBuffer = binWriteBehindBuffer;
+        this.binFillForecaster = binFillForecaster;
+        this.relayed = Counter.builder("smartwaste.bin.changes.relayed")
+                .description("API changes to bins of other nodes published to their owner")
+                .tag("outcome", "ok")
+                .register(meterRegistry);
+        this.failures = Counter.builder("smartwaste.bin.changes.relayed")
+                .description("API changes to bins of other nodes published to their owner")
+                .tag("outcome", "error")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void connect() {
+        if (ingestNode.ownsAll()) {
+            return;
+        }
+        try {
+            IMqttAsyncClient relayClient = clientFactory.getAsyncClientInstance(
+                    brokerUrl, clientId + "_relay_" + ingestNode.instanceId());
+            // Keep changes made while the broker is unreachable and send them after the reconnect
+            DisconnectedBufferOptions buffer = new DisconnectedBufferOptions();
+            buffer.setBufferEnabled(true);
+            buffer.setBufferSize(10_000);
+            relayClient.setBufferOpts(buffer);
+            relayClient.connect(clientFactory.getConnectionOptions()).waitForCompletion(10_000);
+            client = relayClient;
+        } catch (MqttException e) {
+            log.error("Could not connect the bin change relay, API changes to bins of other nodes will not "
+                    + "reach their owners: {}", e.getMessage());
+        }
+    }
+
+    /** Tell the bin's owner that this node changed it in Mongo. No-op for bins this node owns. */
+    public void changed(String binId, BinChange change) {
+        if (ingestNode.owns(binId)) {
+            return;
+        }
+        IMqttAsyncClient relayClient = client;
+        String topic = changedTopic
+                .replace("{binId}", binId)
+                .replace("{partition}", String.valueOf(ingestNode.partitionOf(binId)));
+        try {
+            if (relayClient == null) {
+                throw new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED);
+            }
+            relayClient.publish(topic, change.name().getBytes(StandardCharsets.US_ASCII), 1, false);
+            relayed.increment();
+        } catch (MqttException e) {
+            failures.increment();
+            log.warn("Could not relay {} of bin {} to its owner: {}", change, binId, e.getMessage());
+        }
+    }
+
+    /** Bring this node's state of an owned bin up to date with a change another node made. */
+    public void apply(String binId, BinChange change) {
+        Optional<BinInventory> bin = change == BinChange.DELETED
+                ? Optional.empty()
+                : binInventoryRepository.findById(binId);
+        if (bin.isEmpty()) {
+            binWriteBehindBuffer.evict(binId);
+            binFillForecaster.remove(binId);
+            return;
+        }
+
+        binStateStore.refresh(bin.get());
+        if (binWriteBehindBuffer.applyEmptied(bin.get())) {
+            binFillForecaster.markEmptied(binId,
+                    bin.get().getLastEmptiedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    @PreDestroy
+    public void disconnect() {
+        IMqttAsyncClient relayClient = client;
+        if (relayClient == null) {
+            return;
+        }
+        try {
+            relayClient.disconnect().waitForCompletion(5_000);
+            relayClient.close();
+        } catch (MqttException e) {
+            log.warn("Could not close the bin change relay MQTT client: {}", e.getMessage());
+        }
+    }
+}
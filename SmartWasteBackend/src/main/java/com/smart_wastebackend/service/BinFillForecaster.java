@@ -0,0 +1,280 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.dto.BinForecastDTO;
+import com.smart_wastebackend.enums.WasteType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Online time-to-full estimate for every bin and waste type.
+ * <p>
+ * Each reading updates, in constant time, an exponentially weighted fill rate (percentage points
+ * per hour) and a multiplicative factor for the weekday the reading fell on, so bins that fill
+ * faster on market days or weekends are projected accordingly. The projected time at which the
+ * level reaches {@code forecast.full-level} is recomputed on every reading and kept next to the
+ * rate, so bulk questions like "which bins are full within 24h" are a scan over memory.
+ * <p>
+ * A drop of more than ten points is treated as an emptying: the baseline restarts without
+ * touching the rate. Smaller drops are sensor noise and ignored. Intervals shorter than
+ * {@code forecast.min-interval-ms} are accumulated into the next one so sensor noise between
+ * close readings does not dominate the rate.
+ * <p>
+ * Only bins ingested by this node are forecast here; {@link BinForecastStore} serves the others.
+ */
+@Service
+public class BinFillForecaster {
+
+    private static final WasteType[] TYPES = WasteType.values();
+    private static final long NO_PREDICTION = Long.MIN_VALUE;
+    private static final double HOUR_MILLIS = 3_600_000d;
+    private static final double MIN_FACTOR = 0.1;
+    private static final double MAX_FACTOR = 10d;
+    private static final double EMPTYING_DROP = 10d;
+
+    private final Map<String, BinForecast> forecasts = new ConcurrentHashMap<>();
+    // Bins whose forecast changed since the last drainChanged()
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    private final double fullLevel;
+    private final double rateSmoothing;
+    private final double weekdaySmoothing;
+    private final long minIntervalMs;
+    private final int horizonDays;
+
+    public BinFillForecaster(
+            @Value("${forecast.full-level:90}") double fullLevel,
+            @Value("${forecast.rate-smoothing:0.3}") double rateSmoothing,
+            @Value("${forecast.weekday-smoothing:0.1}") double weekdaySmoothing,
+            @Value("${forecast.min-interval-ms:300000}") long minIntervalMs,
+            @Value("${forecast.horizon-days:30}") int horizonDays
+    ) {
+        this.fullLevel = fullLevel;
+        this.rateSmoothing = rateSmoothing;
+        this.weekdaySmoothing = weekdaySmoothing;
+        this.minIntervalMs = minIntervalMs;
+        this.horizonDays = horizonDays;
+    }
+
+    /** Fold one accepted reading of a bin, taken at {@code atMillis}, into its estimate. */
+    public void observe(String binId, Long plastic, Long paper, Long glass, long atMillis) {
+        BinForecast forecast = forecasts.computeIfAbsent(binId, id -> new BinForecast());
+        synchronized (forecast) {
+            observe(forecast, WasteType.PLASTIC, plastic, atMillis);
+            observe(forecast, WasteType.PAPER, paper, atMillis);
+            observe(forecast, WasteType.GLASS, glass, atMillis);
+        }
+        changed.add(binId);
+    }
+
+    /** Restart every level of a bin from zero after a collection. */
+    public void markEmptied(String binId, long atMillis) {
+        BinForecast forecast = forecasts.get(binId);
+        if (forecast == null) {
+            return;
+        }
+        synchronized (forecast) {
+            for (WasteType type : TYPES) {
+                int t = type.ordinal();
+                forecast.level[t] = 0d;
+                forecast.lastAt[t] = atMillis;
+                forecast.predictedFullAt[t] = project(forecast, t);
+            }
+        }
+        changed.add(binId);
+    }
+
+    public void remove(String binId) {
+        forecasts.remove(binId);
+        changed.remove(binId);
+    }
+
+    /** Current forecasts of the bins observed or emptied since the previous call. */
+    public List<BinForecastDTO> drainChanged() {
+        List<BinForecastDTO> result = new ArrayList<>();
+        for (String binId : changed) {
+            changed.remove(binId);
+            getForecast(binId).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    public Optional<BinForecastDTO> getForecast(String binId) {
+        BinForecast forecast = forecasts.get(binId);
+        if (forecast == null) {
+            return Optional.empty();
+        }
+        synchronized (forecast) {
+            return Optional.of(toDto(binId, forecast));
+        }
+    }
+
+    /**
+     * Bins predicted to reach the full level before {@code now + within}, soonest first. With a
+     * {@code wasteType} only that type is considered, otherwise the earliest of all types.
+     */
+    public List<BinForecastDTO> findFullWithin(Duration within, WasteType wasteType) {
+        long deadline = System.currentTimeMillis() + within.toMillis();
+        List<BinForecastDTO> result = new ArrayList<>();
+        forecasts.forEach((binId, forecast) -> {
+            synchronized (forecast) {
+                long predicted = wasteType != null ? forecast.predictedFullAt[wasteType.ordinal()] : earliest(forecast);
+                if (predicted != NO_PREDICTION && predicted <= deadline) {
+                    result.add(toDto(binId, forecast));
+                }
+            }
+        });
+        result.sort(soonestFirst(wasteType));
+        return result;
+    }
+
+    static Comparator<BinForecastDTO> soonestFirst(WasteType wasteType) {
+        return Comparator.comparing(dto -> wasteType != null ? predictedAt(dto, wasteType) : dto.getPredictedFullAt());
+    }
+
+    private void observe(BinForecast forecast, WasteType type, Long level, long atMillis) {
+        if (level == null) {
+            return;
+        }
+        int t = type.ordinal();
+        double previous = forecast.level[t];
+        long elapsed = atMillis - forecast.lastAt[t];
+
+        if (Double.isNaN(previous) || level < previous - EMPTYING_DROP) {
+            // First reading, or the bin was emptied: new baseline, rate unchanged
+            forecast.level[t] = level;
+            forecast.lastAt[t] = atMillis;
+        } else if (level < previous) {
+            return;
+        } else if (elapsed >= minIntervalMs) {
+            double rate = (level - previous) / (elapsed / HOUR_MILLIS);
+            int weekday = weekday(atMillis);
+            double[] factors = forecast.weekdayFactors[t];
+
+            if (Double.isNaN(forecast.rate[t])) {
+                forecast.rate[t] = rate;
+            } else {
+                if (forecast.rate[t] > 0) {
+                    double observedFactor = rate / forecast.rate[t];
+                    factors[weekday] = clamp((1 - weekdaySmoothing) * factors[weekday] + weekdaySmoothing * observedFactor);
+                }
+                forecast.rate[t] = (1 - rateSmoothing) * forecast.rate[t] + rateSmoothing * (rate / factors[weekday]);
+            }
+            forecast.level[t] = level;
+            forecast.lastAt[t] = atMillis;
+        } else {
+            return;
+        }
+        forecast.predictedFullAt[t] = project(forecast, t);
+    }
+
+    /** Walks forward one day at a time, applying each weekday's factor, until the level reaches full. */
+    private long project(BinForecast forecast, int t) {
+        double remaining = fullLevel - forecast.level[t];
+        if (remaining <= 0) {
+            return forecast.lastAt[t];
+        }
+        double rate = forecast.rate[t];
+        if (Double.isNaN(rate) || rate <= 0) {
+            return NO_PREDICTION;
+        }
+
+        ZonedDateTime cursor = Instant.ofEpochMilli(forecast.lastAt[t]).atZone(ZoneId.systemDefault());
+        for (int day = 0; day <= horizonDays; day++) {
+            ZonedDateTime nextMidnight = cursor.toLocalDate().plusDays(1).atStartOfDay(cursor.getZone());
+            double hours = Duration.between(cursor, nextMidnight).toMillis() / HOUR_MILLIS;
+            double dayRate = rate * forecast.weekdayFactors[t][cursor.getDayOfWeek().ordinal()];
+            if (dayRate * hours >= remaining) {
+                return cursor.toInstant().toEpochMilli() + (long) (remaining / dayRate * HOUR_MILLIS);
+            }
+            remaining -= dayRate * hours;
+            cursor = nextMidnight;
+        }
+        return NO_PREDICTION;
+    }
+
+    private static long earliest(BinForecast forecast) {
+        long earliest = NO_PREDICTION;
+        for (long predicted : forecast.predictedFullAt) {
+            if (predicted != NO_PREDICTION && (earliest == NO_PREDICTION || predicted < earliest)) {
+                earliest = predicted;
+            }
+        }
+        return earliest;
+    }
+
+    private static BinForecastDTO toDto(String binId, BinForecast forecast) {
+        return new BinForecastDTO(
+                binId,
+                toDateTime(earliest(forecast)),
+                toDateTime(forecast.predictedFullAt[WasteType.PLASTIC.ordinal()]),
+                toDateTime(forecast.predictedFullAt[WasteType.PAPER.ordinal()]),
+                toDateTime(forecast.predictedFullAt[WasteType.GLASS.ordinal()]),
+                toRate(forecast.rate[WasteType.PLASTIC.ordinal()]),
+                toRate(forecast.rate[WasteType.PAPER.ordinal()]),
+                toRate(forecast.rate[WasteType.GLASS.ordinal()])
+        );
+    }
+
+    private static LocalDateTime predictedAt(BinForecastDTO dto, WasteType type) {
+        return switch (type) {
+            case PLASTIC -> dto.getPlasticPredictedFullAt();
+            case PAPER -> dto.getPaperPredictedFullAt();
+            case GLASS -> dto.getGlassPredictedFullAt();
+        };
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return epochMillis == NO_PREDICTION
+                ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static Double toRate(double rate) {
+        return Double.isNaN(rate) ? null : rate;
+    }
+
+    private static int weekday(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).getDayOfWeek().ordinal();
+    }
+
+    private static double clamp(double factor) {
+        return Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, factor));
+    }
+
+    /** Estimator state of one bin, indexed by {@link WasteType#ordinal()}. Guarded by its own monitor. */
+    private static final class BinForecast {
+
+        private final double[] level = filled(Double.NaN);
+        private final long[] lastAt = new long[TYPES.length];
+        private final double[] rate = filled(Double.NaN);
+        private final double[][] weekdayFactors = new double[TYPES.length][7];
+        private final long[] predictedFullAt = new long[TYPES.length];
+
+        private BinForecast() {
+            for (double[] factors : weekdayFactors) {
+                Arrays.fill(factors, 1d);
+            }
+            Arrays.fill(predictedFullAt, NO_PREDICTION);
+        }
+
+        private static double[] filled(double value) {
+            double[] values = new double[TYPES.length];
+            Arrays.fill(values, value);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.dto.BinForecastDTO;
+import com.smart_wastebackend.enums.WasteType;
+import com.smart_wastebackend.model.BinInventory;
+import com.smart_wastebackend.model.embedded.FillForecast;
+import com.smart_wastebackend.mqtt.IngestNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Fill forecasts of every bin, whichever node ingests it.
+ * <p>
+ * {@link BinFillForecaster} only sees the readings of the bins this node owns. When the bins are
+ * split over several nodes, forecasts that changed are written to {@code bin_inventory.forecast}
+ * every {@code forecast.persist-interval-ms}, and forecasts of other nodes' bins are read from
+ * there, at most that interval behind. A node owning every partition answers from memory only.
+ */
+@Service
+@Slf4j
+public class BinForecastStore {
+
+    private final BinFillForecaster binFillForecaster;
+    private final IngestNode ingestNode;
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public BinForecastStore(BinFillForecaster binFillForecaster, IngestNode ingestNode, MongoTemplate mongoTemplate) {
+        this.binFillForecaster = binFillForecaster;
+        this.ingestNode = ingestNode;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Optional<BinForecastDTO> getForecast(String binId) {
+        if (ingestNode.owns(binId)) {
+            return binFillForecaster.getForecast(binId);
+        }
+
+        Query query = Query.query(Criteria.where("_id").is(binId));
+        query.fields().include("forecast");
+        BinInventory bin = mongoTemplate.findOne(query, BinInventory.class);
+        return Optional.ofNullable(bin)
+                .map(BinInventory::getForecast)
+                .map(forecast -> forecast.toDto(binId));
+    }
+
+    /** See {@link BinFillForecaster#findFullWithin}; other nodes' bins come from their last persisted forecast. */
+    public List<BinForecastDTO> findFullWithin(Duration within, WasteType wasteType) {
+        List<BinForecastDTO> result = binFillForecaster.findFullWithin(within, wasteType);
+        if (ingestNode.ownsAll()) {
+            return result;
+        }
+
+        String field = "forecast." + (wasteType != null
+                ? wasteType.name().toLowerCase(Locale.ROOT) + "_predicted_full_at"
+                : "predicted_full_at");
+        Query query = Query.query(Criteria.where(field).lte(LocalDateTime.now().plus(within)));
+        query.fields().include("forecast");
+
+        result = new ArrayList<>(result);
+        for (BinInventory bin : mongoTemplate.find(query, BinInventory.class)) {
+            // Owned bins are already in the list, with a fresher forecast
+            if (!ingestNode.owns(bin.getBinId())) {
+                result.add(bin.getForecast().toDto(bin.getBinId()));
+            }
+        }
+        result.sort(BinFillForecaster.soonestFirst(wasteType));
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${forecast.persist-interval-ms:60000}")
+    public void persist() {
+        // Drained even when running alone, so the set of changed bins does not grow unbounded
+        List<BinForecastDTO> changed = binFillForecaster.drainChanged();
+        if (ingestNode.ownsAll() || changed.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BinInventory.class);
+        for (BinForecastDTO forecast : changed) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(forecast.getBinId())),
+                    new Update().set("forecast", FillForecast.of(forecast)));
+        }
+        try {
+            bulk.execute();
+            log.debug("Persisted {} bin forecasts", changed.size());
+        } catch (RuntimeException e) {
+            // An exception escaping a scheduled task would cancel every later run; each of these
+            // bins is written again after its next reading
+            log.error("Failed to persist {} bin forecasts: {}", changed.size(), e.getMessage());
+        }
+    }
+}
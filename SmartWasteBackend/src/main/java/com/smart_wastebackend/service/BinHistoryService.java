@@ -0,0 +1,258 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.dto.BinHistoryPointDTO;
+import com.smart_wastebackend.dto.BinRollupDTO;
+import com.smart_wastebackend.enums.RollupGranularity;
+import com.smart_wastebackend.enums.UserRoleEnum;
+import com.smart_wastebackend.exception.AccessDeniedException;
+import com.smart_wastebackend.exception.BinNotFoundException;
+import com.smart_wastebackend.model.BinTelemetry;
+import com.smart_wastebackend.model.UserTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fill level history of every bin.
+ * <p>
+ * Accepted readings are queued in memory and appended to the {@code bin_telemetry} time-series
+ * collection in batches, so ingest never waits on the insert. History is best effort: when the
+ * queue is full or a batch fails the readings are dropped and counted, the latest levels on
+ * {@code bin_inventory} are not affected.
+ * <p>
+ * Range queries are downsampled into at most {@code maxPoints} buckets of equal width: buckets
+ * shorter than an hour are computed from the raw readings in Mongo, longer ones from the hourly
+ * and daily rollups maintained by {@link BinRollupService}.
+ */
+@Service
+@Slf4j
+public class BinHistoryService {
+
+    private static final Duration MIN_RESOLUTION = Duration.ofMinutes(1);
+    private static final Duration DEFAULT_RANGE = Duration.ofDays(1);
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+
+    private final MongoTemplate mongoTemplate;
+    private final BinStateStore binStateStore;
+    private final BinRollupService binRollupService;
+    private final BlockingQueue<BinTelemetry> queue;
+    private final Counter appended;
+    private final Counter dropped;
+    private final Timer flushTimer;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Value("${telemetry.history.retention:P180D}")
+    private Duration retention;
+
+    @Value("${telemetry.history.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${telemetry.history.max-points:5000}")
+    private int maxPointsLimit;
+
+    @Autowired
+    public BinHistoryService(
+            MongoTemplate mongoTemplate,
+            BinStateStore binStateStore,
+            BinRollupService binRollupService,
+            MeterRegistry meterRegistry,
+            @Value("${telemetry.history.queue-capacity:20000}") int queueCapacity
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.binStateStore = binStateStore;
+        this.binRollupService = binRollupService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.appended = Counter.builder("smartwaste.telemetry.history.readings")
+                .description("Readings appended to the history collection")
+                .tag("outcome", "written")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("smartwaste.telemetry.history.readings")
+                .description("Readings appended to the history collection")
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("smartwaste.telemetry.history.flush.latency")
+                .description("Time taken to insert one history batch")
+                .register(meterRegistry);
+        meterRegistry.gauge("smartwaste.telemetry.history.pending", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void createCollection() {
+        try {
+            if (!mongoTemplate.collectionExists(BinTelemetry.class)) {
+                mongoTemplate.createCollection(BinTelemetry.class, CollectionOptions.timeSeries("timestamp",
+                        options -> options.metaField("bin_id").granularity(Granularity.HOURS).expireAfter(retention)));
+                log.info("Created time-series collection bin_telemetry (retention {})", retention);
+            }
+        } catch (RuntimeException e) {
+            // Inserts would silently create a plain collection instead, so make this loud
+            log.error("Could not create time-series collection bin_telemetry: {}", e.getMessage());
+        }
+    }
+
+    /** Queue one accepted reading for the history; {@code timestamp} is when the bin took it. */
+    public void record(String binId, Long plasticLevel, Long paperLevel, Long glassLevel, LocalDateTime timestamp) {
+        BinTelemetry reading = new BinTelemetry(null, binId, timestamp, plasticLevel, paperLevel, glassLevel);
+        if (!queue.offer(reading)) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.history.flush-interval-ms:1000}")
+    public void flush() {
+        // One flush at a time, so a rollup rebuild never sees readings whose apply is still pending
+        flushLock.lock();
+        try {
+            drain();
+            binRollupService.rebuildFailed();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void drain() {
+        List<BinTelemetry> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        while (queue.drainTo(batch, batchSize) > 0) {
+            long start = System.nanoTime();
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BinTelemetry.class)
+                        .insert(batch)
+                        .execute();
+                appended.increment(batch.size());
+                binRollupService.apply(batch);
+            } catch (RuntimeException e) {
+                dropped.increment(batch.size());
+                log.error("Failed to append {} readings to bin history: {}", batch.size(), e.getMessage());
+            } finally {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Average levels of a bin between {@code from} and {@code to}, one point per bucket. The
+     * bucket width is {@code resolution}, widened as needed so no more than {@code maxPoints}
+     * points come back.
+     */
+    public List<BinHistoryPointDTO> getHistory(String binId, UserTable user, LocalDateTime from, LocalDateTime to,
+                                               Duration resolution, int maxPoints) {
+        checkAccess(binId, user);
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(DEFAULT_RANGE);
+        checkRange(start, end);
+        if (maxPoints < 1 || maxPoints > maxPointsLimit) {
+            throw new IllegalArgumentException("maxPoints must be between 1 and " + maxPointsLimit);
+        }
+
+        long bucketMillis = bucketMillis(Duration.between(start, end), resolution, maxPoints);
+        if (bucketMillis >= HOUR_MILLIS) {
+            // Whole hours from a whole hour (or day), so every rollup bucket falls into exactly one point
+            long hours = (bucketMillis + HOUR_MILLIS - 1) / HOUR_MILLIS;
+            return binRollupService.downsample(binId, start, end, hours * HOUR_MILLIS);
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("bin_id").is(binId).and("timestamp").gte(start).lt(end)),
+                downsample(bucketMillis),
+                Aggregation.sort(Sort.Direction.ASC, "_id")
+        );
+
+        return mongoTemplate.aggregate(aggregation, "bin_telemetry", Document.class)
+                .getMappedResults()
+                .stream()
+                .map(BinHistoryService::toPoint)
+                .toList();
+    }
+
+    /** Hourly or daily statistics per waste type of a bin between {@code from} and {@code to}. */
+    public List<BinRollupDTO> getRollups(String binId, UserTable user, RollupGranularity granularity,
+                                         LocalDateTime from, LocalDateTime to) {
+        checkAccess(binId, user);
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(DEFAULT_RANGE);
+        checkRange(start, end);
+        return binRollupService.getRollups(binId, granularity, start, end);
+    }
+
+    private void checkAccess(String binId, UserTable user) {
+        BinState bin = binStateStore.get(binId)
+                .orElseThrow(() -> new BinNotFoundException(binId));
+        if (user.getRole() == UserRoleEnum.ROLE_BIN_OWNER && !user.getId().equals(bin.ownerId())) {
+            throw new AccessDeniedException("You do not own bin " + binId);
+        }
+    }
+
+    private static void checkRange(LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+    }
+
+    private static long bucketMillis(Duration range, Duration resolution, int maxPoints) {
+        long requested = resolution != null ? resolution.toMillis() : 0L;
+        long needed = (range.toMillis() + maxPoints - 1) / maxPoints;
+        return Math.max(MIN_RESOLUTION.toMillis(), Math.max(requested, needed));
+    }
+
+    /** Group by {@code timestamp - timestamp % bucketMillis} and average each level. */
+    private static AggregationOperation downsample(long bucketMillis) {
+        Document time = new Document("$toLong", "$timestamp");
+        Document bucket = new Document("$subtract", List.of(time, new Document("$mod", List.of(time, bucketMillis))));
+        return context -> new Document("$group", new Document("_id", bucket)
+                .append("plastic", new Document("$avg", "$plastic_level"))
+                .append("paper", new Document("$avg", "$paper_level"))
+                .append("glass", new Document("$avg", "$glass_level"))
+                .append("samples", new Document("$sum", 1)));
+    }
+
+    private static BinHistoryPointDTO toPoint(Document bucket) {
+        LocalDateTime timestamp = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(((Number) bucket.get("_id")).longValue()), ZoneId.systemDefault());
+        return new BinHistoryPointDTO(
+                timestamp,
+                toDouble(bucket.get("plastic")),
+                toDouble(bucket.get("paper")),
+                toDouble(bucket.get("glass")),
+                ((Number) bucket.get("samples")).longValue()
+        );
+    }
+
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+}
@@ -1,19 +1,32 @@
 package com.smart_wastebackend.service;
 
 import com.smart_wastebackend.dto.ApiResponse;
+import com.smart_wastebackend.dto.BinForecastDTO;
 import com.smart_wastebackend.dto.BinInventoryResponseDTO;
 import com.smart_wastebackend.dto.BinLocationDTO;
+import com.smart_wastebackend.enums.BinChange;
 import com.smart_wastebackend.enums.BinStatusEnum;
+import com.smart_wastebackend.enums.UserRoleEnum;
+import com.smart_wastebackend.enums.WasteType;
+import com.smart_wastebackend.exception.AccessDeniedException;
 import com.smart_wastebackend.exception.BinAlreadyExistsException;
 import com.smart_wastebackend.exception.BinNotFoundException;
 import com.smart_wastebackend.exception.UserNotFoundException;
 import com.smart_wastebackend.model.BinInventory;
+import com.smart_wastebackend.model.UserTable;
 import com.smart_wastebackend.repository.BinInventoryRepository;
 import com.smart_wastebackend.repository.BinOwnerProfileRepository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,14 +35,32 @@ public class BinInventoryService {
 
     private final BinInventoryRepository binInventoryRepository;
     private final BinOwnerProfileRepository binOwnerProfileRepository;
+    private final BinWriteBehindBuffer binWriteBehindBuffer;
+    private final BinStateStore binStateStore;
+    private final BinFillForecaster binFillForecaster;
+    private final BinForecastStore binForecastStore;
+    private final BinChangeRelay binChangeRelay;
+    private final MongoTemplate mongoTemplate;
 
     @Autowired
     public BinInventoryService(
             BinInventoryRepository binInventoryRepository,
-            BinOwnerProfileRepository binOwnerProfileRepository
+            BinOwnerProfileRepository binOwnerProfileRepository,
+            BinWriteBehindBuffer binWriteBehindBuffer,
+            BinStateStore binStateStore,
+            BinFillForecaster binFillForecaster,
+            BinForecastStore binForecastStore,
+            BinChangeRelay binChangeRelay,
+            MongoTemplate mongoTemplate
     ) {
         this.binInventoryRepository = binInventoryRepository;
         this.binOwnerProfileRepository = binOwnerProfileRepository;
+        this.binWriteBehindBuffer = binWriteBehindBuffer;
+        this.binStateStore = binStateStore;
+        this.binFillForecaster = binFillForecaster;
+        this.binForecastStore = binForecastStore;
+        this.binChangeRelay = binChangeRelay;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public ApiResponse<List<BinInventoryResponseDTO>> getBinsFiltered(BinStatusEnum status, String ownerId) {
@@ -108,6 +139,8 @@ public class BinInventoryService {
         binInventory.setLastEmptiedAt(null);
 
         binInventoryRepository.save(binInventory);
+        binStateStore.put(binInventory);
+        binChangeRelay.changed(binId, BinChange.UPDATED);
 
         return ApiResponse.<BinInventory>builder()
                 .success(true)
@@ -118,13 +151,17 @@ public class BinInventoryService {
 
     @Transactional
     public ApiResponse<BinInventory> updateBinLocation(String binId, BinLocationDTO request) {
-        BinInventory bin = binInventoryRepository.findById(binId)
-                .orElseThrow(() -> new BinNotFoundException(binId));
-
-        bin.setLatitude(request.getLatitude());
-        bin.setLongitude(request.getLongitude());
-
-        BinInventory updatedBin = binInventoryRepository.save(bin);
+        // Targeted $set: a find + full save would put back levels the write-behind flush wrote in between
+        BinInventory updatedBin = mongoTemplate.findAndModify(
+                byId(binId),
+                new Update().set("latitude", request.getLatitude()).set("longitude", request.getLongitude()),
+                FindAndModifyOptions.options().returnNew(true),
+                BinInventory.class);
+        if (updatedBin == null) {
+            throw new BinNotFoundException(binId);
+        }
+        binStateStore.update(binId, state -> state.withLocation(request.getLatitude(), request.getLongitude()));
+        binChangeRelay.changed(binId, BinChange.UPDATED);
 
         return ApiResponse.<BinInventory>builder()
                 .success(true)
@@ -138,6 +175,9 @@ public class BinInventoryService {
         BinInventory bin = binInventoryRepository.findById(binId)
                 .orElseThrow(() -> new BinNotFoundException(binId));
         binInventoryRepository.delete(bin);
+        binWriteBehindBuffer.evict(binId);
+        binFillForecaster.remove(binId);
+        binChangeRelay.changed(binId, BinChange.DELETED);
 
         return ApiResponse.<Void>builder()
                 .success(true)
@@ -147,10 +187,16 @@ public class BinInventoryService {
 
     @Transactional
     public ApiResponse<BinInventory> changeStatus(String binId, BinStatusEnum newStatus) {
-        BinInventory bin = binInventoryRepository.findById(binId)
-                .orElseThrow(() -> new BinNotFoundException(binId));
-        bin.setStatus(newStatus);
-        binInventoryRepository.save(bin);
+        BinInventory bin = mongoTemplate.findAndModify(
+                byId(binId),
+                new Update().set("status", newStatus),
+                FindAndModifyOptions.options().returnNew(true),
+                BinInventory.class);
+        if (bin == null) {
+            throw new BinNotFoundException(binId);
+        }
+        binStateStore.update(binId, state -> state.withOwner(newStatus, bin.getOwnerId()));
+        binChangeRelay.changed(binId, BinChange.UPDATED);
 
         return ApiResponse.<BinInventory>builder()
                 .success(true)
@@ -162,20 +208,27 @@ public class BinInventoryService {
     // FIXED VERSION — Only AVAILABLE bins can be assigned
     @Transactional
     public ApiResponse<BinInventory> assignBinToOwner(String binId, String userId) {
-        BinInventory bin = binInventoryRepository.findById(binId)
-                .orElseThrow(() -> new BinNotFoundException("Bin not found"));
+        binOwnerProfileRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("Bin owner profile not found"));
 
-        if (bin.getStatus() != BinStatusEnum.AVAILABLE) {
+        // The AVAILABLE check is part of the update, so two concurrent assignments cannot both win
+        BinInventory savedBin = mongoTemplate.findAndModify(
+                byId(binId).addCriteria(Criteria.where("status").is(BinStatusEnum.AVAILABLE)),
+                new Update()
+                        .set("owner_id", userId)
+                        .set("status", BinStatusEnum.ASSIGNED)
+                        .set("assigned_date", LocalDate.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                BinInventory.class);
+        if (savedBin == null) {
+            BinInventory bin = binInventoryRepository.findById(binId)
+                    .orElseThrow(() -> new BinNotFoundException("Bin not found"));
             throw new IllegalStateException(
                     "Only AVAILABLE bins can be assigned. Current status: " + bin.getStatus()
             );
         }
-
-        binOwnerProfileRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("Bin owner profile not found"));
-
-        bin.assignToOwner(userId);
-        BinInventory savedBin = binInventoryRepository.save(bin);
+        binStateStore.update(binId, state -> state.withOwner(savedBin.getStatus(), savedBin.getOwnerId()));
+        binChangeRelay.changed(binId, BinChange.UPDATED);
 
         return ApiResponse.<BinInventory>builder()
                 .success(true)
@@ -184,4 +237,39 @@ public class BinInventoryService {
                 .timestamp(LocalDateTime.now().toString())
                 .build();
     }
+
+    public ApiResponse<BinForecastDTO> getForecast(String binId, UserTable user) {
+        BinState bin = binStateStore.get(binId)
+                .orElseThrow(() -> new BinNotFoundException(binId));
+        if (user.getRole() == UserRoleEnum.ROLE_BIN_OWNER && !user.getId().equals(bin.ownerId())) {
+            throw new AccessDeniedException("You do not own bin " + binId);
+        }
+
+        BinForecastDTO forecast = binForecastStore.getForecast(binId)
+                .orElseGet(() -> new BinForecastDTO(binId, null, null, null, null, null, null, null));
+        return ApiResponse.<BinForecastDTO>builder()
+                .success(true)
+                .message("Bin forecast fetched successfully")
+                .data(forecast)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+
+    public ApiResponse<List<BinForecastDTO>> getBinsPredictedFull(long withinHours, WasteType wasteType) {
+        if (withinHours < 1) {
+            throw new IllegalArgumentException("withinHours must be positive");
+        }
+
+        List<BinForecastDTO> forecasts = binForecastStore.findFullWithin(Duration.ofHours(withinHours), wasteType);
+        return ApiResponse.<List<BinForecastDTO>>builder()
+                .success(true)
+                .message(forecasts.size() + " bins predicted full within " + withinHours + "h")
+                .data(forecasts)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+    }
+
+    private static Query byId(String binId) {
+        return Query.query(Criteria.where("_id").is(binId));
+    }
 }
@@ -0,0 +1,315 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.dto.BinHistoryPointDTO;
+import com.smart_wastebackend.dto.BinRollupDTO;
+import com.smart_wastebackend.dto.FillStatsDTO;
+import com.smart_wastebackend.enums.RollupGranularity;
+import com.smart_wastebackend.model.BinRollup;
+import com.smart_wastebackend.model.BinTelemetry;
+import com.smart_wastebackend.model.embedded.LevelStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hourly and daily fill level rollups per bin and waste type.
+ * <p>
+ * Each history batch is folded in right after it is written: readings are pre-aggregated per bin
+ * and bucket in memory, then applied as one upsert per bucket with an update pipeline. Min, max,
+ * sum and count are order-independent, and {@code last} only moves when the reading is newer than
+ * {@code last_at}, so readings that arrive late (device time behind) still land in the right
+ * bucket without disturbing it. Trend queries read these collections only.
+ * <p>
+ * Those merges are not idempotent, so a batch that fails is not retried as is. Instead the bin
+ * and day of every reading in it are remembered, and {@link #rebuildFailed()} later recomputes
+ * the hourly and daily buckets of those days from the raw history, which already holds them.
+ */
+@Service
+@Slf4j
+public class BinRollupService {
+
+    private static final Date EPOCH = new Date(0L);
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    private final MongoTemplate mongoTemplate;
+    private final Timer rollupTimer;
+    private final Counter rollupFailures;
+    private final Set<DirtyDay> dirtyDays = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public BinRollupService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.rollupTimer = Timer.builder("smartwaste.telemetry.rollup.latency")
+                .description("Time taken to fold one history batch into the rollups")
+                .register(meterRegistry);
+        this.rollupFailures = Counter.builder("smartwaste.telemetry.rollup.failures")
+                .description("History batches that could not be folded into the rollups")
+                .register(meterRegistry);
+        meterRegistry.gauge("smartwaste.telemetry.rollup.pending.rebuilds", dirtyDays, Set::size);
+    }
+
+    @PostConstruct
+    public void createIndexes() {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            try {
+                mongoTemplate.indexOps(granularity.getCollection())
+                        .createIndex(new Index().on("bin_id", Sort.Direction.ASC).on("bucket", Sort.Direction.ASC));
+            } catch (RuntimeException e) {
+                log.error("Could not create index on {}: {}", granularity.getCollection(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fold readings that were just appended to the history into every rollup. If that fails, the
+     * days they fall into are queued for {@link #rebuildFailed()}.
+     */
+    public void apply(List<BinTelemetry> readings) {
+        long start = System.nanoTime();
+        try {
+            fold(readings);
+        } catch (RuntimeException e) {
+            rollupFailures.increment();
+            for (BinTelemetry reading : readings) {
+                dirtyDays.add(new DirtyDay(reading.getBinId(), reading.getTimestamp().truncatedTo(ChronoUnit.DAYS)));
+            }
+            log.error("Failed to update rollups for {} readings, their days will be rebuilt: {}", readings.size(), e.getMessage());
+        } finally {
+            rollupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Recompute the rollups of every day a failed {@link #apply} touched from the raw history.
+     * Callers must keep history inserts and {@link #apply} from running at the same time, or
+     * readings written in between would be counted twice.
+     */
+    public void rebuildFailed() {
+        for (DirtyDay day : dirtyDays) {
+            LocalDateTime end = day.day().plusDays(1);
+            try {
+                for (RollupGranularity granularity : RollupGranularity.values()) {
+                    mongoTemplate.remove(Query.query(Criteria.where("bin_id").is(day.binId())
+                            .and("bucket").gte(day.day()).lt(end)), granularity.getCollection());
+                }
+                List<BinTelemetry> readings = mongoTemplate.find(Query.query(Criteria.where("bin_id").is(day.binId())
+                        .and("timestamp").gte(day.day()).lt(end)), BinTelemetry.class);
+                if (!readings.isEmpty()) {
+                    fold(readings);
+                }
+                dirtyDays.remove(day);
+                log.info("Rebuilt rollups of bin {} for {} from {} readings", day.binId(), day.day().toLocalDate(), readings.size());
+            } catch (RuntimeException e) {
+                log.error("Failed to rebuild rollups of bin {} for {}: {}", day.binId(), day.day().toLocalDate(), e.getMessage());
+            }
+        }
+    }
+
+    private void fold(List<BinTelemetry> readings) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Map<String, BucketAccumulator> buckets = new LinkedHashMap<>();
+            for (BinTelemetry reading : readings) {
+                LocalDateTime bucket = reading.getTimestamp().truncatedTo(granularity.getUnit());
+                buckets.computeIfAbsent(reading.getBinId() + ":" + toDate(bucket).getTime(),
+                                id -> new BucketAccumulator(reading.getBinId(), bucket))
+                        .add(reading);
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, granularity.getCollection());
+            buckets.forEach((id, bucket) -> bulk.upsert(Query.query(Criteria.where("_id").is(id)), bucket.toUpdate()));
+            bulk.execute();
+        }
+    }
+
+    public List<BinRollupDTO> getRollups(String binId, RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        return find(binId, granularity, from, to).stream()
+                .map(rollup -> new BinRollupDTO(
+                        rollup.getBucket(),
+                        toStats(rollup.getPlastic()),
+                        toStats(rollup.getPaper()),
+                        toStats(rollup.getGlass())
+                ))
+                .toList();
+    }
+
+    /**
+     * History points of {@code bucketMillis} width (whole hours) built from the rollups.
+     * Whole-day widths use the daily rollup, everything else the hourly one. Points start at
+     * {@code from} truncated to the rollup's unit, so every bucket falls into exactly one point.
+     * Points are counted in calendar days or hours rather than in milliseconds, so a daily point
+     * always starts at a local midnight, also around the 23 h and 25 h days of a DST change.
+     */
+    public List<BinHistoryPointDTO> downsample(String binId, LocalDateTime from, LocalDateTime to, long bucketMillis) {
+        RollupGranularity granularity = bucketMillis % DAY_MILLIS == 0 ? RollupGranularity.DAILY : RollupGranularity.HOURLY;
+        ChronoUnit unit = granularity.getUnit();
+        long width = bucketMillis / unit.getDuration().toMillis();
+        LocalDateTime start = from.truncatedTo(unit);
+
+        Map<Long, PointAccumulator> points = new TreeMap<>();
+        for (BinRollup rollup : find(binId, granularity, start, to)) {
+            long index = unit.between(start, rollup.getBucket()) / width;
+            points.computeIfAbsent(index, i -> new PointAccumulator()).add(rollup);
+        }
+
+        List<BinHistoryPointDTO> result = new ArrayList<>(points.size());
+        points.forEach((index, point) -> result.add(point.toPoint(start.plus(index * width, unit))));
+        return result;
+    }
+
+    private List<BinRollup> find(String binId, RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        Query query = Query.query(Criteria.where("bin_id").is(binId)
+                        .and("bucket").gte(from.truncatedTo(granularity.getUnit())).lt(to))
+                .with(Sort.by(Sort.Direction.ASC, "bucket"));
+        return mongoTemplate.find(query, BinRollup.class, granularity.getCollection());
+    }
+
+    private static FillStatsDTO toStats(LevelStats stats) {
+        if (stats == null || stats.getCount() == null || stats.getCount() == 0) {
+            return null;
+        }
+        return new FillStatsDTO(stats.getMin(), stats.getMax(), (double) stats.getSum() / stats.getCount(), stats.getLast());
+    }
+
+    private static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private record DirtyDay(String binId, LocalDateTime day) {
+    }
+
+    /** Readings of one bin and bucket within a batch. */
+    private static final class BucketAccumulator {
+
+        private final String binId;
+        private final LocalDateTime bucket;
+        private final TypeAccumulator plastic = new TypeAccumulator("plastic");
+        private final TypeAccumulator paper = new TypeAccumulator("paper");
+        private final TypeAccumulator glass = new TypeAccumulator("glass");
+        private long samples;
+
+        private BucketAccumulator(String binId, LocalDateTime bucket) {
+            this.binId = binId;
+            this.bucket = bucket;
+        }
+
+        void add(BinTelemetry reading) {
+            samples++;
+            plastic.add(reading.getPlasticLevel(), reading.getTimestamp());
+            paper.add(reading.getPaperLevel(), reading.getTimestamp());
+            glass.add(reading.getGlassLevel(), reading.getTimestamp());
+        }
+
+        AggregationUpdate toUpdate() {
+            Document set = new Document("bin_id", binId)
+                    .append("bucket", toDate(bucket))
+                    .append("samples", new Document("$add", List.of(new Document("$ifNull", List.of("$samples", 0L)), samples)));
+            plastic.appendTo(set);
+            paper.appendTo(set);
+            glass.appendTo(set);
+            return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+        }
+    }
+
+    /** Statistics of one waste type within a batch, merged into the stored ones by {@link #appendTo}. */
+    private static final class TypeAccumulator {
+
+        private final String field;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private long sum;
+        private long count;
+        private long last;
+        private LocalDateTime lastAt;
+
+        private TypeAccumulator(String field) {
+            this.field = field;
+        }
+
+        void add(Long level, LocalDateTime at) {
+            if (level == null) {
+                return;
+            }
+            min = Math.min(min, level);
+            max = Math.max(max, level);
+            sum += level;
+            count++;
+            if (lastAt == null || !at.isBefore(lastAt)) {
+                last = level;
+                lastAt = at;
+            }
+        }
+
+        void appendTo(Document set) {
+            if (count == 0) {
+                return;
+            }
+            String stored = "$" + field;
+            Date lastAtDate = toDate(lastAt);
+            set.append(field + ".min", new Document("$min", List.of(stored + ".min", min)))
+                    .append(field + ".max", new Document("$max", List.of(stored + ".max", max)))
+                    .append(field + ".sum", new Document("$add", List.of(new Document("$ifNull", List.of(stored + ".sum", 0L)), sum)))
+                    .append(field + ".count", new Document("$add", List.of(new Document("$ifNull", List.of(stored + ".count", 0L)), count)))
+                    .append(field + ".last", new Document("$cond", List.of(
+                            new Document("$gte", List.of(lastAtDate, new Document("$ifNull", List.of(stored + ".last_at", EPOCH)))),
+                            last,
+                            stored + ".last")))
+                    .append(field + ".last_at", new Document("$max", List.of(stored + ".last_at", lastAtDate)));
+        }
+    }
+
+    /** Rollup buckets merged into one history point. */
+    private static final class PointAccumulator {
+
+        private final long[] sums = new long[3];
+        private final long[] counts = new long[3];
+        private long samples;
+
+        void add(BinRollup rollup) {
+            samples += rollup.getSamples() != null ? rollup.getSamples() : 0L;
+            add(0, rollup.getPlastic());
+            add(1, rollup.getPaper());
+            add(2, rollup.getGlass());
+        }
+
+        private void add(int type, LevelStats stats) {
+            if (stats != null && stats.getCount() != null) {
+                sums[type] += stats.getSum();
+                counts[type] += stats.getCount();
+            }
+        }
+
+        BinHistoryPointDTO toPoint(LocalDateTime timestamp) {
+            return new BinHistoryPointDTO(timestamp, average(0), average(1), average(2), samples);
+        }
+
+        private Double average(int type) {
+            return counts[type] > 0 ? (double) sums[type] / counts[type] : null;
+        }
+    }
+}
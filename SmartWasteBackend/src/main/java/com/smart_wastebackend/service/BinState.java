@@ -0,0 +1,118 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.enums.BinStatusEnum;
+import com.smart_wastebackend.model.BinInventory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of one bin as held by {@link BinStateStore}.
+ * <p>
+ * Levels are stored as {@code int} with {@link #NO_LEVEL} for "not reported" and coordinates as
+ * {@code double} with {@code NaN} for "unknown", so a snapshot is a single small object. Reported
+ * levels are checked to be 0..100 when they are decoded, so a real level can never be mistaken
+ * for {@code NO_LEVEL}.
+ * <p>
+ * {@code ownerUsername} caches the owner's login name for WebSocket pushes. It is filled on first
+ * use and cleared whenever the owner changes.
+ */
+public record BinState(
+        String binId,
+        BinStatusEnum status,
+        String ownerId,
+        String ownerUsername,
+        int plasticLevel,
+        int paperLevel,
+        int glassLevel,
+        double latitude,
+        double longitude,
+        LocalDateTime lastEmptiedAt,
+        long lastSeenAt
+) {
+
+    public static final int NO_LEVEL = -1;
+
+    static BinState of(BinInventory bin, long lastSeenAt) {
+        return new BinState(
+                bin.getBinId(),
+                bin.getStatus(),
+                bin.getOwnerId(),
+                null,
+                toLevel(bin.getPlasticLevel()),
+                toLevel(bin.getPaperLevel()),
+                toLevel(bin.getGlassLevel()),
+                bin.getLatitude() != null ? bin.getLatitude() : Double.NaN,
+                bin.getLongitude() != null ? bin.getLongitude() : Double.NaN,
+                bin.getLastEmptiedAt(),
+                lastSeenAt
+        );
+    }
+
+    public Long plastic() {
+        return toLong(plasticLevel);
+    }
+
+    public Long paper() {
+        return toLong(paperLevel);
+    }
+
+    public Long glass() {
+        return toLong(glassLevel);
+    }
+
+    public boolean hasLocation() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+
+    public Double latitudeOrNull() {
+        return Double.isNaN(latitude) ? null : latitude;
+    }
+
+    public Double longitudeOrNull() {
+        return Double.isNaN(longitude) ? null : longitude;
+    }
+
+    public BinState withLevels(Long plastic, Long paper, Long glass) {
+        return new BinState(binId, status, ownerId, ownerUsername, toLevel(plastic), toLevel(paper), toLevel(glass),
+                latitude, longitude, lastEmptiedAt, lastSeenAt);
+    }
+
+    public BinState withLocation(double newLatitude, double newLongitude) {
+        return new BinState(binId, status, ownerId, ownerUsername, plasticLevel, paperLevel, glassLevel,
+                newLatitude, newLongitude, lastEmptiedAt, lastSeenAt);
+    }
+
+    public BinState withLastSeenAt(long epochMillis) {
+        return new BinState(binId, status, ownerId, ownerUsername, plasticLevel, paperLevel, glassLevel,
+                latitude, longitude, lastEmptiedAt, epochMillis);
+    }
+
+    public BinState withOwnerUsername(String username) {
+        return new BinState(binId, status, ownerId, username, plasticLevel, paperLevel, glassLevel,
+                latitude, longitude, lastEmptiedAt, lastSeenAt);
+    }
+
+    /** New status and owner; the cached owner username is dropped. */
+    public BinState withOwner(BinStatusEnum newStatus, String newOwnerId) {
+        return new BinState(binId, newStatus, newOwnerId, null, plasticLevel, paperLevel, glassLevel,
+                latitude, longitude, lastEmptiedAt, lastSeenAt);
+    }
+
+    public BinState withLastEmptiedAt(LocalDateTime emptiedAt) {
+        return new BinState(binId, status, ownerId, ownerUsername, plasticLevel, paperLevel, glassLevel,
+                latitude, longitude, emptiedAt, lastSeenAt);
+    }
+
+    /** All levels back to zero, as after a collection. */
+    public BinState emptied(LocalDateTime emptiedAt) {
+        return new BinState(binId, status, ownerId, ownerUsername, 0, 0, 0, latitude, longitude, emptiedAt, lastSeenAt);
+    }
+
+    private static int toLevel(Long level) {
+        return level != null ? level.intValue() : NO_LEVEL;
+    }
+
+    private static Long toLong(int level) {
+        return level != NO_LEVEL ? (long) level : null;
+    }
+}
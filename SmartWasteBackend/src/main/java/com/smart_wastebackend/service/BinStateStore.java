@@ -0,0 +1,217 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.model.BinInventory;
+import com.smart_wastebackend.mqtt.IngestNode;
+import com.smart_wastebackend.repository.BinInventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * In-process copy of every bin's levels, owner, location and collection time.
+ * <p>
+ * Loaded from {@code bin_inventory} once the application is ready and kept current by the MQTT
+ * ingest path, collections and inventory changes, so read endpoints never wait on Mongo for bin
+ * state. Persistence of ingest changes stays with {@link BinWriteBehindBuffer}. A bin missing from
+ * the map (requested before the preload finished, or evicted) is read through
+ * from Mongo once. A bin that is not in Mongo either is remembered as missing for
+ * {@code bin-state.missing-ttl-ms}, so a device publishing under an unknown id does not cost a
+ * Mongo lookup per message.
+ * <p>
+ * Only bins of the partitions this node ingests ({@link IngestNode}) are preloaded and kept. A bin
+ * of another node is read through when an API request needs it and re-read once it is older than
+ * {@code bin-state.foreign-ttl-ms}, since its levels change on the other node; API changes to it
+ * reach the owner through {@link BinChangeRelay}.
+ */
+@Service
+@Slf4j
+public class BinStateStore {
+
+    private static final int MAX_MISSING = 10_000;
+
+    private final Map<String, BinState> states = new ConcurrentHashMap<>();
+    // Bin id -> System.nanoTime() until which it is known not to exist
+    private final Map<String, Long> missingUntil = new ConcurrentHashMap<>();
+    // Bin id of another node -> System.nanoTime() after which its state is re-read
+    private final Map<String, Long> foreignUntil = new ConcurrentHashMap<>();
+    private final MongoTemplate mongoTemplate;
+    private final BinInventoryRepository binInventoryRepository;
+    private final IngestNode ingestNode;
+    private final Counter readThroughs;
+    private final long missingTtlNanos;
+    private final long foreignTtlNanos;
+
+    @Value("${bin-state.preload:true}")
+    private boolean preload;
+
+    @Autowired
+    public BinStateStore(
+            MongoTemplate mongoTemplate,
+            BinInventoryRepository binInventoryRepository,
+            IngestNode ingestNode,
+            MeterRegistry meterRegistry,
+            @Value("${bin-state.missing-ttl-ms:5000}") long missingTtlMs,
+            @Value("${bin-state.foreign-ttl-ms:5000}") long foreignTtlMs
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.binInventoryRepository = binInventoryRepository;
+        this.ingestNode = ingestNode;
+        this.missingTtlNanos = TimeUnit.MILLISECONDS.toNanos(missingTtlMs);
+        this.foreignTtlNanos = TimeUnit.MILLISECONDS.toNanos(foreignTtlMs);
+        this.readThroughs = Counter.builder("smartwaste.bin.state.read.through")
+                .description("Bin state lookups that missed memory and went to Mongo")
+                .register(meterRegistry);
+        meterRegistry.gauge("smartwaste.bin.state.size", states, Map::size);
+        meterRegistry.gauge("smartwaste.bin.state.foreign", foreignUntil, Map::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!preload) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Query query = new Query();
+        query.fields().include("status", "owner_id", "latitude", "longitude", "plastic_level", "paper_level",
+                "glass_level", "last_emptied_at", "last_seen_at");
+
+        int loaded = 0;
+        int skipped = 0;
+        try (Stream<BinInventory> bins = mongoTemplate.stream(query, BinInventory.class)) {
+            for (BinInventory bin : (Iterable<BinInventory>) bins::iterator) {
+                if (!ingestNode.owns(bin.getBinId())) {
+                    skipped++;
+                    continue;
+                }
+                // Never overwrite state that ingest already produced while we were loading
+                states.putIfAbsent(bin.getBinId(), toState(bin));
+                loaded++;
+            }
+        }
+        log.info("Loaded state of {} bins in {} ms, skipped {} of other ingest nodes",
+                loaded, System.currentTimeMillis() - start, skipped);
+    }
+
+    /** Current state of a bin, or empty if the bin does not exist. */
+    public Optional<BinState> get(String binId) {
+        long now = System.nanoTime();
+        BinState state = states.get(binId);
+        if (state != null) {
+            Long foreign = foreignUntil.get(binId);
+            if (foreign == null || foreign - now > 0) {
+                return Optional.of(state);
+            }
+            // Another node's bin, its levels may have moved on since we read it
+            states.remove(binId, state);
+            foreignUntil.remove(binId, foreign);
+        }
+
+        Long until = missingUntil.get(binId);
+        if (until != null) {
+            if (until - now > 0) {
+                return Optional.empty();
+            }
+            missingUntil.remove(binId, until);
+        }
+
+        readThroughs.increment();
+        Optional<BinState> found = binInventoryRepository.findById(binId)
+                .map(bin -> states.computeIfAbsent(binId, id -> track(bin, now)));
+        if (found.isEmpty()) {
+            rememberMissing(binId, now);
+        }
+        return found;
+    }
+
+    private void rememberMissing(String binId, long now) {
+        if (missingUntil.size() >= MAX_MISSING) {
+            missingUntil.values().removeIf(until -> until - now <= 0);
+            if (missingUntil.size() >= MAX_MISSING) {
+                return;
+            }
+        }
+        missingUntil.put(binId, now + missingTtlNanos);
+    }
+
+    /**
+     * Atomically replace a bin's state with {@code change} applied to it. The function may run
+     * side effects that must happen under the same per-bin lock.
+     *
+     * @return {@code false} if the bin does not exist
+     */
+    public boolean update(String binId, UnaryOperator<BinState> change) {
+        if (get(binId).isEmpty()) {
+            return false;
+        }
+        return states.computeIfPresent(binId, (id, state) -> change.apply(state)) != null;
+    }
+
+    /** Track a newly created bin. */
+    public void put(BinInventory bin) {
+        states.put(bin.getBinId(), track(bin, System.nanoTime()));
+        missingUntil.remove(bin.getBinId());
+    }
+
+    /**
+     * Take the status, owner and location of {@code bin} as read from Mongo after another node
+     * changed it. Levels and the collection time are left to {@link BinWriteBehindBuffer#applyEmptied}.
+     */
+    public void refresh(BinInventory bin) {
+        missingUntil.remove(bin.getBinId());
+        states.compute(bin.getBinId(), (id, state) -> state == null
+                ? track(bin, System.nanoTime())
+                : state.withOwner(bin.getStatus(), bin.getOwnerId())
+                        .withLocation(toCoordinate(bin.getLatitude()), toCoordinate(bin.getLongitude())));
+    }
+
+    public void remove(String binId) {
+        states.remove(binId);
+        foreignUntil.remove(binId);
+    }
+
+    @Scheduled(fixedDelayString = "${bin-state.foreign-ttl-ms:5000}")
+    public void evictForeign() {
+        long now = System.nanoTime();
+        foreignUntil.forEach((binId, until) -> {
+            if (until - now <= 0 && foreignUntil.remove(binId, until)) {
+                states.remove(binId);
+            }
+        });
+    }
+
+    // Bins of other nodes are only kept for bin-state.foreign-ttl-ms
+    private BinState track(BinInventory bin, long now) {
+        if (!ingestNode.owns(bin.getBinId())) {
+            foreignUntil.put(bin.getBinId(), now + foreignTtlNanos);
+        }
+        return toState(bin);
+    }
+
+    private static double toCoordinate(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static BinState toState(BinInventory bin) {
+        long lastSeenAt = bin.getLastSeenAt() != null
+                ? bin.getLastSeenAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0L;
+        return BinState.of(bin, lastSeenAt);
+    }
+}
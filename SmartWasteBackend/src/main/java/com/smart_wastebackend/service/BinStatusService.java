@@ -1,22 +1,27 @@
 package com.smart_wastebackend.service;
 
 import com.smart_wastebackend.dto.ApiResponse;
+import com.smart_wastebackend.dto.BinLocationDTO;
 import com.smart_wastebackend.dto.BinStatusDTO;
+import com.smart_wastebackend.enums.BinChange;
 import com.smart_wastebackend.exception.BinStatusNotFoundException; // Kept for semantics, but it's really a BinNotFoundException
 import com.smart_wastebackend.exception.UserNotFoundException;
 import com.smart_wastebackend.model.BinInventory;
 // import com.greenpulse.greenpulse_backend.model.BinStatus; // REMOVED: Model is deleted
-import com.smart_wastebackend.model.UserTable;
 import com.smart_wastebackend.repository.BinInventoryRepository;
 // import com.greenpulse.greenpulse_backend.repository.BinStatusRepository; // REMOVED: Repository is deleted
-import com.smart_wastebackend.repository.UserTableRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.time.ZoneId;
 // import java.util.UUID; // REMOVED: No longer needed
 
 @Service
@@ -27,31 +32,40 @@ public class BinStatusService {
     // private final BinStatusRepository binStatusRepository;
 
     private final BinInventoryRepository binInventoryRepository;
-    private final UserTableRepository userTableRepository;
-    private final NotificationService notificationService;
+    private final BinWriteBehindBuffer binWriteBehindBuffer;
+    private final BinStateStore binStateStore;
+    private final BinHistoryService binHistoryService;
+    private final BinFillForecaster binFillForecaster;
+    private final BinChangeRelay binChangeRelay;
+    private final MongoTemplate mongoTemplate;
 
     @Autowired
     public BinStatusService(
             // BinStatusRepository binStatusRepository, // REMOVED
             BinInventoryRepository binInventoryRepository,
-            UserTableRepository userTableRepository,
-            NotificationService notificationService
+            BinWriteBehindBuffer binWriteBehindBuffer,
+            BinStateStore binStateStore,
+            BinHistoryService binHistoryService,
+            BinFillForecaster binFillForecaster,
+            BinChangeRelay binChangeRelay,
+            MongoTemplate mongoTemplate
     ) {
         // this.binStatusRepository = binStatusRepository; // REMOVED
         this.binInventoryRepository = binInventoryRepository;
-        this.userTableRepository = userTableRepository;
-        this.notificationService = notificationService;
+        this.binWriteBehindBuffer = binWriteBehindBuffer;
+        this.binStateStore = binStateStore;
+        this.binHistoryService = binHistoryService;
+        this.binFillForecaster = binFillForecaster;
+        this.binChangeRelay = binChangeRelay;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public ApiResponse<BinStatusDTO> getBinStatus(String binId, String userId) { // CHANGED: UUID to String
-        BinInventory binInventory = binInventoryRepository.findById(binId)
+        // Served from memory: the MQTT path keeps the store current
+        BinState state = binStateStore.get(binId)
                 .orElseThrow(() -> new BinStatusNotFoundException(binId));
 
-        // CHANGED: Use getOwnerId()
-        UserTable user = userTableRepository.findById(binInventory.getOwnerId())
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
-
-        if (!user.getId().equals(userId)) {
+        if (state.ownerId() == null || !state.ownerId().equals(userId)) {
             throw new UserNotFoundException("User not found for given bin");
         }
 
@@ -62,10 +76,9 @@ public class BinStatusService {
         BinStatusDTO binStatusDTO = new BinStatusDTO();
         binStatusDTO.setBinId(binId);
 
-        // CHANGED: Read from binInventory object
-        binStatusDTO.setPlasticLevel(binInventory.getPlasticLevel());
-        binStatusDTO.setGlassLevel(binInventory.getGlassLevel());
-        binStatusDTO.setPaperLevel(binInventory.getPaperLevel());
+        binStatusDTO.setPlasticLevel(state.plastic());
+        binStatusDTO.setGlassLevel(state.glass());
+        binStatusDTO.setPaperLevel(state.paper());
 
         return ApiResponse.<BinStatusDTO>builder()
                 .success(true)
@@ -75,81 +88,49 @@ public class BinStatusService {
                 .build();
     }
 
-    @Transactional
-    public void updateBinLevels(BinStatusDTO binStatusDTO) {
-        // CHANGED: Fetch BinInventory
-        BinInventory bin = binInventoryRepository.findById(binStatusDTO.getBinId())
-                .orElseThrow(() -> new BinStatusNotFoundException("Bin not found for bin: " + binStatusDTO.getBinId()));
-
-        // Store old levels for comparison
-        Long oldPlasticLevel = bin.getPlasticLevel();
-        Long oldPaperLevel = bin.getPaperLevel();
-        Long oldGlassLevel = bin.getGlassLevel();
-
-        // CHANGED: Set levels on BinInventory
-        bin.setPlasticLevel(binStatusDTO.getPlasticLevel());
-        bin.setPaperLevel(binStatusDTO.getPaperLevel());
-        bin.setGlassLevel(binStatusDTO.getGlassLevel());
-        binInventoryRepository.save(bin); // CHANGED: Save using BinInventoryRepository
-
-        checkAndTriggerNotifications(bin, oldPlasticLevel, oldPaperLevel, oldGlassLevel); // CHANGED: Pass BinInventory
+    /**
+     * Apply a level reading reported by the bin. Persistence and threshold notifications are
+     * handled by the write-behind stage. Every reading is appended to the history and fed to the
+     * fill forecast, including those the write-behind stage drops as unchanged, so a bin that
+     * stops filling brings its rate down instead of keeping the last one.
+     * Returns false if the levels did not change.
+     */
+    public boolean updateBinLevels(BinStatusDTO binStatusDTO) {
+        boolean changed = binWriteBehindBuffer.submit(binStatusDTO);
+
+        long readAtMillis = binStatusDTO.getTimestamp() != null ? binStatusDTO.getTimestamp() : System.currentTimeMillis();
+        LocalDateTime readAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(readAtMillis), ZoneId.systemDefault());
+        binHistoryService.record(binStatusDTO.getBinId(), binStatusDTO.getPlasticLevel(),
+                binStatusDTO.getPaperLevel(), binStatusDTO.getGlassLevel(), readAt);
+        binFillForecaster.observe(binStatusDTO.getBinId(), binStatusDTO.getPlasticLevel(),
+                binStatusDTO.getPaperLevel(), binStatusDTO.getGlassLevel(), readAtMillis);
+        return changed;
     }
 
-    @Transactional
-    public BinInventory updateLastEmptiedAt(String binId, BinStatusDTO binStatusDTO) { // CHANGED: Return type
-        // CHANGED: Fetch BinInventory
-        BinInventory bin = binInventoryRepository.findById(binId)
-                .orElseThrow(() -> new BinStatusNotFoundException(binId));
-
-        // CHANGED: Set on BinInventory
-        bin.setLastEmptiedAt(binStatusDTO.getLastEmptiedAt());
-        return binInventoryRepository.save(bin); // CHANGED: Save using BinInventoryRepository
+    /** Apply a GPS position reported by the bin itself; returns false if it was dropped as jitter. */
+    public boolean updateReportedLocation(String binId, BinLocationDTO location) {
+        return binWriteBehindBuffer.submitLocation(binId, location.getLatitude(), location.getLongitude());
     }
 
-
-    private void checkAndTriggerNotifications(BinInventory bin, Long oldPlasticLevel, Long oldPaperLevel, Long oldGlassLevel) { // CHANGED: Parameter type
-        String binId = bin.getBinId();
-        String binOwnerId = getBinOwnerId(binId); // CHANGED: This now returns String
-
-        // Check plastic level
-        // CHANGED: Get from bin
-        if (isLevelHigh(bin.getPlasticLevel()) && !isLevelHigh(oldPlasticLevel)) {
-            int percentage = bin.getPlasticLevel().intValue();
-            log.info("High plastic level detected for bin {}: {}%", binId, percentage);
-            notificationService.createFillLevelNotification(binId, percentage, binOwnerId); // CHANGThis (binOwnerId is now String)
-        }
-
-        // Check paper level
-        if (isLevelHigh(bin.getPaperLevel()) && !isLevelHigh(oldPaperLevel)) {
-            int percentage = bin.getPaperLevel().intValue();
-            log.info("High paper level detected for bin {}: {}%", binId, percentage);
-            notificationService.createFillLevelNotification(binId, percentage, binOwnerId); // CHANGED: This (binOwnerId is now String)
-        }
-
-        // Check glass level
-        if (isLevelHigh(bin.getGlassLevel()) && !isLevelHigh(oldGlassLevel)) {
-            int percentage = bin.getGlassLevel().intValue();
-            log.info("High glass level detected for bin {}: {}%", binId, percentage);
-            notificationService.createFillLevelNotification(binId, percentage, binOwnerId); // CHANGED: This (binOwnerId is now String)
+    public BinInventory updateLastEmptiedAt(String binId, BinStatusDTO binStatusDTO) { // CHANGED: Return type
+        // A future time would make the write-behind guard reject every level reading until then
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime emptiedAt = binStatusDTO.getLastEmptiedAt();
+        if (emptiedAt == null || emptiedAt.isAfter(now)) {
+            emptiedAt = now;
         }
-    }
-
-    private boolean isLevelHigh(Long level) {
-        return level != null && level >= 90L; // Use 90L for consistency
-    }
-
-    private String getBinOwnerId(String binId) { // CHANGED: Return type to String
-        BinInventory bin = binInventoryRepository.findById(binId)
-                .orElseThrow(() -> new BinStatusNotFoundException("Bin not found: " + binId));
-        return bin.getOwnerId(); // CHANGED: Get the direct ID
-    }
-
-    public void checkAllBinsForHighLevels() {
-        // CHANGED: Use BinInventoryRepository
-        List<BinInventory> highLevelBins = binInventoryRepository.findBinsWithHighFillLevel(90L);
 
-        for (BinInventory bin : highLevelBins) { // CHANGED: List type
-            checkAndTriggerNotifications(bin, 0L, 0L, 0L); // CHANGED: Pass BinInventory
+        // Single $set instead of find + full-document save, which could revert concurrent level writes
+        BinInventory saved = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(binId)),
+                new Update().set("last_emptied_at", emptiedAt),
+                FindAndModifyOptions.options().returnNew(true),
+                BinInventory.class);
+        if (saved == null) {
+            throw new BinStatusNotFoundException(binId);
         }
+        binStateStore.update(binId, state -> state.withLastEmptiedAt(saved.getLastEmptiedAt()));
+        binChangeRelay.changed(binId, BinChange.UPDATED);
+        return saved;
     }
-}
\ No newline at end of file
+}
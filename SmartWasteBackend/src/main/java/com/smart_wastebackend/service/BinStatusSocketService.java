@@ -3,13 +3,15 @@ package com.smart_wastebackend.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smart_wastebackend.dto.BinStatusDTO;
+import com.smart_wastebackend.enums.IngestStage;
 import com.smart_wastebackend.exception.BinNotFoundException;
 import com.smart_wastebackend.exception.UserNotFoundException;
-import com.smart_wastebackend.model.BinInventory;
 import com.smart_wastebackend.model.UserTable;
-import com.smart_wastebackend.repository.BinInventoryRepository;
+import com.smart_wastebackend.mqtt.IngestMetrics;
 import com.smart_wastebackend.repository.UserTableRepository;
 import com.smart_wastebackend.websocket.BinStatusWebSocketHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -17,36 +19,60 @@ import org.springframework.stereotype.Service;
 public class BinStatusSocketService {
     private final BinStatusWebSocketHandler handler;
     private final ObjectMapper objectMapper;
-    private final BinInventoryRepository binInventory;
+    private final BinStateStore binStateStore;
     private final UserTableRepository userRepository;
+    private final IngestMetrics ingestMetrics;
+    private final Counter usernameLookups;
 
     @Autowired
     public BinStatusSocketService(
             BinStatusWebSocketHandler handler,
             ObjectMapper objectMapper,
-            BinInventoryRepository binInventory,
-            UserTableRepository userRepository) {
+            BinStateStore binStateStore,
+            UserTableRepository userRepository,
+            IngestMetrics ingestMetrics,
+            MeterRegistry meterRegistry) {
         this.handler = handler;
         this.objectMapper = objectMapper;
-        this.binInventory = binInventory;
+        this.binStateStore = binStateStore;
         this.userRepository = userRepository;
+        this.ingestMetrics = ingestMetrics;
+        this.usernameLookups = Counter.builder("smartwaste.bin.owner.username.lookups")
+                .description("Owner usernames loaded from Mongo because the bin state had none cached")
+                .register(meterRegistry);
     }
 
     public void sendBinStatusToUser(String binId, BinStatusDTO dto) {
-        BinInventory bin = binInventory.findById(binId)
-                .orElseThrow(() -> new BinNotFoundException(binId));
-
-        // --- THIS IS THE FIX ---
-        // Changed bin.getOwner().getUserId() to bin.getOwnerId()
-        UserTable user = userRepository.findById(bin.getOwnerId())
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
-        // -----------------------
-
+        long start = System.nanoTime();
+        String outcome = IngestMetrics.ERROR;
         try {
+            BinState bin = binStateStore.get(binId)
+                    .orElseThrow(() -> new BinNotFoundException(binId));
+            if (bin.ownerId() == null) {
+                // Unassigned bins have nobody to push to
+                outcome = "no_owner";
+                return;
+            }
+
+            String username = bin.ownerUsername() != null ? bin.ownerUsername() : loadOwnerUsername(bin);
             String jsonMessage = objectMapper.writeValueAsString(dto);
-            handler.sendStatusToUser(user.getUsername(), jsonMessage);
+            outcome = handler.sendStatusToUser(username, jsonMessage) ? IngestMetrics.OK : "no_session";
         } catch (JsonProcessingException e) {
             System.out.println("Error converting DTO to JSON: " + e.getMessage());
+        } finally {
+            ingestMetrics.record(IngestStage.PUSH, IngestMetrics.TOPIC_STATUS, outcome, start);
         }
     }
-}
\ No newline at end of file
+
+    /** Look the owner's username up once and keep it in the bin state, unless the owner changed meanwhile. */
+    private String loadOwnerUsername(BinState bin) {
+        usernameLookups.increment();
+        String username = userRepository.findById(bin.ownerId())
+                .map(UserTable::getUsername)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        binStateStore.update(bin.binId(), state -> bin.ownerId().equals(state.ownerId())
+                ? state.withOwnerUsername(username)
+                : state);
+        return username;
+    }
+}
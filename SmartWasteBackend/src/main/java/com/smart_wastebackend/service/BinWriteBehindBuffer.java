@@ -0,0 +1,577 @@
+package com.smart_wastebackend.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.smart_wastebackend.dto.BinStatusDTO;
+import com.smart_wastebackend.enums.IngestStage;
+import com.smart_wastebackend.exception.BinStatusNotFoundException;
+import com.smart_wastebackend.model.BinInventory;
+import com.smart_wastebackend.model.NotificationOutboxEntry;
+import com.smart_wastebackend.mqtt.IngestMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind stage for MQTT bin readings (fill levels and GPS location).
+ * <p>
+ * Readings are applied to {@link BinStateStore} right away and merged per bin for persistence
+ * (latest wins), then flushed to Mongo as one unordered bulk of partial {@code $set} updates,
+ * either when the number of dirty bins reaches the batch size or on the periodic flush tick.
+ * Threshold crossings are detected at submit time against the stored levels, so every crossing
+ * is recorded even when readings are merged, and the notifications are only queued to the
+ * {@link NotificationOutbox} after the batch carrying the crossing has been written.
+ * <p>
+ * Level writes are conditional on {@code last_emptied_at} not being later than the reading, so a
+ * batch that was already drained when a collector emptied the bin cannot put the old levels back.
+ * <p>
+ * Level readings that differ from the last accepted levels by no more than the configured
+ * tolerance are dropped before they reach the batch (bins re-report identical levels for hours);
+ * such a bin only gets a {@code last_seen_at} heartbeat write once per heartbeat interval so its
+ * liveness can still be tracked. Location reports that moved less than the configured dead-band
+ * from the last known position are treated as GPS jitter and dropped the same way.
+ */
+@Service
+@Slf4j
+public class BinWriteBehindBuffer {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000d;
+
+    private final MongoTemplate mongoTemplate;
+    private final BinStateStore binStateStore;
+    private final NotificationOutbox notificationOutbox;
+    private final IngestMetrics ingestMetrics;
+
+    private final Map<String, PendingBinUpdate> pendingUpdates = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Own flusher thread, so slow @Scheduled jobs (history flush, rollup rebuilds) never hold up level writes
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter flushFailures;
+    private final Counter writesSkipped;
+    private final Counter locationsAccepted;
+    private final Counter locationsSuppressed;
+    private final Counter readingsAccepted;
+    private final Counter readingsUnchanged;
+    private final Counter heartbeats;
+
+    @Value("${ingest.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ingest.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${ingest.location.dead-band-meters:15}")
+    private double locationDeadBandMeters;
+
+    @Value("${ingest.unchanged.level-tolerance:0}")
+    private long levelTolerance;
+
+    @Value("${ingest.unchanged.heartbeat-interval-ms:900000}")
+    private long heartbeatIntervalMs;
+
+    @Autowired
+    public BinWriteBehindBuffer(
+            MongoTemplate mongoTemplate,
+            BinStateStore binStateStore,
+            NotificationOutbox notificationOutbox,
+            IngestMetrics ingestMetrics,
+            MeterRegistry meterRegistry
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.binStateStore = binStateStore;
+        this.notificationOutbox = notificationOutbox;
+        this.ingestMetrics = ingestMetrics;
+
+        this.flushTimer = Timer.builder("smartwaste.ingest.flush.latency")
+                .description("Time taken to write one write-behind batch to Mongo")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("smartwaste.ingest.flush.batch.size")
+                .description("Number of bins written per write-behind flush")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("smartwaste.ingest.flush.failures")
+                .description("Write-behind flushes that failed and were re-queued")
+                .register(meterRegistry);
+        this.writesSkipped = Counter.builder("smartwaste.ingest.flush.skipped")
+                .description("Write-behind updates that matched no bin (emptied after the reading, or deleted)")
+                .register(meterRegistry);
+        this.locationsAccepted = Counter.builder("smartwaste.ingest.location.updates")
+                .description("Bin location reports by dead-band outcome")
+                .tag("outcome", "accepted")
+                .register(meterRegistry);
+        this.locationsSuppressed = Counter.builder("smartwaste.ingest.location.updates")
+                .description("Bin location reports by dead-band outcome")
+                .tag("outcome", "suppressed")
+                .register(meterRegistry);
+        this.readingsAccepted = Counter.builder("smartwaste.ingest.status.readings")
+                .description("Bin level readings by change-detection outcome")
+                .tag("outcome", "accepted")
+                .register(meterRegistry);
+        this.readingsUnchanged = Counter.builder("smartwaste.ingest.status.readings")
+                .description("Bin level readings by change-detection outcome")
+                .tag("outcome", "unchanged")
+                .register(meterRegistry);
+        this.heartbeats = Counter.builder("smartwaste.ingest.heartbeats")
+                .description("Liveness-only writes for bins whose levels did not change")
+                .register(meterRegistry);
+        meterRegistry.gauge("smartwaste.ingest.flush.pending", pendingUpdates, Map::size);
+    }
+
+    /**
+     * Queue a level reading for the next flush and record any threshold crossing it causes.
+     *
+     * @return {@code true} if the levels changed, {@code false} if the reading was dropped as unchanged
+     */
+    public boolean submit(BinStatusDTO reading) {
+        String binId = reading.getBinId();
+        BinLevels next = new BinLevels(reading.getPlasticLevel(), reading.getPaperLevel(), reading.getGlassLevel());
+        long now = System.currentTimeMillis();
+        boolean[] changed = new boolean[1];
+
+        boolean known = binStateStore.update(binId, state -> {
+            BinLevels current = BinLevels.of(state);
+            long thresholdStart = System.nanoTime();
+            List<FillCrossing> crossings = detectCrossings(current, next);
+            ingestMetrics.record(IngestStage.THRESHOLD, IngestMetrics.TOPIC_STATUS,
+                    crossings.isEmpty() ? "none" : "crossed", thresholdStart);
+            if (crossings.isEmpty() && current.within(next, levelTolerance)) {
+                if (now - state.lastSeenAt() < heartbeatIntervalMs) {
+                    return state;
+                }
+                heartbeats.increment();
+                pendingUpdates.merge(binId, PendingBinUpdate.heartbeat(binId, now), PendingBinUpdate::mergeNewer);
+                return state.withLastSeenAt(now);
+            }
+
+            changed[0] = true;
+            LocalDateTime readAt = toDateTime(now);
+            pendingUpdates.merge(binId, new PendingBinUpdate(binId, next, readAt, null, readAt, crossings),
+                    PendingBinUpdate::mergeNewer);
+            return state.withLevels(next.plastic(), next.paper(), next.glass()).withLastSeenAt(now);
+        });
+        if (!known) {
+            throw new BinStatusNotFoundException("Bin not found for bin: " + binId);
+        }
+
+        if (!changed[0]) {
+            readingsUnchanged.increment();
+            flushIfFull();
+            return false;
+        }
+
+        readingsAccepted.increment();
+        flushIfFull();
+        return true;
+    }
+
+    /**
+     * Queue a reported GPS position unless it lies within the dead-band of the last known one.
+     *
+     * @return {@code true} if the position was accepted, {@code false} if it was dropped as jitter
+     */
+    public boolean submitLocation(String binId, double latitude, double longitude) {
+        Location next = new Location(latitude, longitude);
+        long now = System.currentTimeMillis();
+        boolean[] accepted = new boolean[1];
+
+        boolean known = binStateStore.update(binId, state -> {
+            if (state.hasLocation()
+                    && new Location(state.latitude(), state.longitude()).distanceTo(next) < locationDeadBandMeters) {
+                return state;
+            }
+            accepted[0] = true;
+            pendingUpdates.merge(binId, new PendingBinUpdate(binId, null, null, next, toDateTime(now), List.of()),
+                    PendingBinUpdate::mergeNewer);
+            return state.withLocation(latitude, longitude).withLastSeenAt(now);
+        });
+        if (!known) {
+            throw new BinStatusNotFoundException("Bin not found for bin: " + binId);
+        }
+
+        if (!accepted[0]) {
+            locationsSuppressed.increment();
+            return false;
+        }
+
+        locationsAccepted.increment();
+        flushIfFull();
+        return true;
+    }
+
+    /**
+     * Called when a collector empties the bin: zeroes the levels and sets {@code last_emptied_at},
+     * in memory and then in Mongo with a single {@code findAndModify}. Pending levels are discarded
+     * and the next reading is compared against empty; a batch already being flushed is stopped by
+     * the {@code last_emptied_at} guard on level writes.
+     *
+     * @return {@code false} if the bin does not exist
+     */
+    public boolean markEmptied(String binId, LocalDateTime emptiedAt) {
+        binStateStore.update(binId, state -> {
+            pendingUpdates.computeIfPresent(binId, (key, pending) -> pending.withoutLevels());
+            return state.emptied(emptiedAt);
+        });
+
+        Query query = Query.query(Criteria.where("_id").is(binId));
+        query.fields().include("_id");
+        Update update = new Update()
+                .set("plastic_level", 0L)
+                .set("paper_level", 0L)
+                .set("glass_level", 0L)
+                .set("last_emptied_at", emptiedAt);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false), BinInventory.class) != null;
+    }
+
+    /**
+     * Apply a collection that another node recorded in Mongo, see {@link BinChangeRelay}. Pending
+     * levels read before it are discarded and the levels stored with it are taken over, unless
+     * newer readings are still pending.
+     *
+     * @return {@code true} if {@code bin.last_emptied_at} is later than the one this node knew
+     */
+    public boolean applyEmptied(BinInventory bin) {
+        LocalDateTime emptiedAt = bin.getLastEmptiedAt();
+        boolean[] applied = new boolean[1];
+
+        binStateStore.update(bin.getBinId(), state -> {
+            if (emptiedAt == null || (state.lastEmptiedAt() != null && !emptiedAt.isAfter(state.lastEmptiedAt()))) {
+                return state;
+            }
+            applied[0] = true;
+            PendingBinUpdate pending = pendingUpdates.computeIfPresent(bin.getBinId(), (key, update) ->
+                    update.levelsAt() != null && update.levelsAt().isBefore(emptiedAt) ? update.withoutLevels() : update);
+            BinState next = pending != null && pending.levels() != null
+                    ? state
+                    : state.withLevels(bin.getPlasticLevel(), bin.getPaperLevel(), bin.getGlassLevel());
+            return next.withLastEmptiedAt(emptiedAt);
+        });
+        return applied[0];
+    }
+
+    /** Forget everything about a bin, e.g. after it has been deleted from the inventory. */
+    public void evict(String binId) {
+        binStateStore.remove(binId);
+        pendingUpdates.remove(binId);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::scheduledFlush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return; // another thread is already flushing, it will pick up our entries next round
+        }
+        try {
+            List<PendingBinUpdate> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            if (!writeBatch(batch)) {
+                return;
+            }
+
+            List<NotificationOutboxEntry> notifications = new ArrayList<>();
+            List<PendingBinUpdate> notified = new ArrayList<>();
+            for (PendingBinUpdate update : batch) {
+                if (collectNotifications(update, notifications)) {
+                    notified.add(update);
+                }
+            }
+            enqueueNotifications(notifications, notified);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    // An exception escaping a scheduled task would cancel every later run
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void flushIfFull() {
+        if (pendingUpdates.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    private List<PendingBinUpdate> drain() {
+        List<PendingBinUpdate> batch = new ArrayList<>(pendingUpdates.size());
+        for (String binId : pendingUpdates.keySet()) {
+            PendingBinUpdate update = pendingUpdates.remove(binId);
+            if (update != null) {
+                batch.add(update);
+            }
+        }
+        return batch;
+    }
+
+    private boolean writeBatch(List<PendingBinUpdate> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BinInventory.class);
+        int writes = 0;
+        int issued = 0;
+        for (PendingBinUpdate update : batch) {
+            Update levels = update.toLevelsUpdate();
+            if (levels != null) {
+                // Skipped if the bin was emptied after the reading was taken
+                bulk.updateOne(Query.query(Criteria.where("_id").is(update.binId()).orOperator(
+                        Criteria.where("last_emptied_at").is(null),
+                        Criteria.where("last_emptied_at").lte(update.levelsAt()))), levels);
+                issued++;
+            }
+            Update other = update.toOtherUpdate();
+            if (other != null) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(update.binId())), other);
+                issued++;
+            }
+            if (levels != null || other != null) {
+                writes++;
+            }
+        }
+
+        if (writes == 0) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        try {
+            BulkWriteResult result = bulk.execute();
+            batchSizeSummary.record(writes);
+            int skipped = issued - result.getMatchedCount();
+            if (skipped > 0) {
+                writesSkipped.increment(skipped);
+                log.info("Write-behind flush skipped {} of {} updates: bin emptied after the reading, or deleted",
+                        skipped, issued);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.error("Write-behind flush of {} bins failed, re-queueing: {}", writes, e.getMessage());
+            batch.forEach(this::requeue);
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void requeue(PendingBinUpdate failed) {
+        // Anything newer that arrived during the flush wins, but the failed crossings are kept.
+        pendingUpdates.merge(failed.binId(), failed, (newer, old) -> old.mergeNewer(newer));
+    }
+
+    // Returns whether the update's crossings were added
+    private boolean collectNotifications(PendingBinUpdate update, List<NotificationOutboxEntry> notifications) {
+        if (update.crossings().isEmpty()) {
+            return false;
+        }
+
+        String binOwnerId = binStateStore.get(update.binId())
+                .map(BinState::ownerId)
+                .orElse(null);
+        if (binOwnerId == null) {
+            log.warn("Skipping fill level notification for bin {}: bin has no owner", update.binId());
+            ingestMetrics.record(IngestStage.NOTIFY, IngestMetrics.TOPIC_STATUS, "no_owner", System.nanoTime());
+            return false;
+        }
+
+        for (FillCrossing crossing : update.crossings()) {
+            log.info("High {} level detected for bin {}: {}%", crossing.wasteType(), update.binId(), crossing.percentage());
+            notifications.add(NotificationOutbox.fillLevel(update.binId(), crossing.percentage(), binOwnerId));
+        }
+        return true;
+    }
+
+    /**
+     * One outbox insert for every crossing in the batch; the dispatcher creates and pushes them.
+     * If the insert fails, the crossings of {@code notified} go back to the pending updates and
+     * are queued again by the next flush.
+     */
+    private void enqueueNotifications(List<NotificationOutboxEntry> notifications, List<PendingBinUpdate> notified) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        String outcome = IngestMetrics.OK;
+        try {
+            notificationOutbox.enqueueAll(notifications);
+        } catch (RuntimeException e) {
+            outcome = IngestMetrics.ERROR;
+            log.error("Failed to queue {} fill level notifications, re-queueing: {}", notifications.size(), e.getMessage());
+            notified.forEach(update -> requeue(PendingBinUpdate.crossingsOnly(update.binId(), update.crossings())));
+        } finally {
+            ingestMetrics.record(IngestStage.NOTIFY, IngestMetrics.TOPIC_STATUS, outcome, start);
+        }
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static List<FillCrossing> detectCrossings(BinLevels previous, BinLevels next) {
+        List<FillCrossing> crossings = new ArrayList<>(0);
+        addIfCrossed(crossings, "plastic", previous.plastic(), next.plastic());
+        addIfCrossed(crossings, "paper", previous.paper(), next.paper());
+        addIfCrossed(crossings, "glass", previous.glass(), next.glass());
+        return crossings;
+    }
+
+    private static void addIfCrossed(List<FillCrossing> crossings, String wasteType, Long oldLevel, Long newLevel) {
+        if (isLevelHigh(newLevel) && !isLevelHigh(oldLevel)) {
+            crossings.add(new FillCrossing(wasteType, newLevel.intValue()));
+        }
+    }
+
+    private static boolean isLevelHigh(Long level) {
+        return level != null && level >= NotificationService.HIGH_FILL_LEVEL;
+    }
+
+    private record BinLevels(Long plastic, Long paper, Long glass) {
+
+        static BinLevels of(BinState state) {
+            return new BinLevels(state.plastic(), state.paper(), state.glass());
+        }
+
+        /** True if every level of {@code other} is within {@code tolerance} percentage points of this one. */
+        boolean within(BinLevels other, long tolerance) {
+            return close(plastic, other.plastic, tolerance)
+                    && close(paper, other.paper, tolerance)
+                    && close(glass, other.glass, tolerance);
+        }
+
+        private static boolean close(Long a, Long b, long tolerance) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            return Math.abs(a - b) <= tolerance;
+        }
+    }
+
+    private record Location(double latitude, double longitude) {
+
+        /** Great-circle (haversine) distance in meters. */
+        double distanceTo(Location other) {
+            double dLat = Math.toRadians(other.latitude - latitude);
+            double dLon = Math.toRadians(other.longitude - longitude);
+            double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                    + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude))
+                    * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+            return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1d, Math.sqrt(a)));
+        }
+    }
+
+    private record FillCrossing(String wasteType, int percentage) {
+    }
+
+    /**
+     * Unsaved levels (accepted at {@code levelsAt}), location and liveness for one bin plus every
+     * crossing seen since the last successful flush.
+     */
+    private record PendingBinUpdate(String binId, BinLevels levels, LocalDateTime levelsAt, Location location,
+                                    LocalDateTime lastSeenAt, List<FillCrossing> crossings) {
+
+        static PendingBinUpdate heartbeat(String binId, long epochMillis) {
+            return new PendingBinUpdate(binId, null, null, null, toDateTime(epochMillis), List.of());
+        }
+
+        // Nothing left to write, only notifications to queue
+        static PendingBinUpdate crossingsOnly(String binId, List<FillCrossing> crossings) {
+            return new PendingBinUpdate(binId, null, null, null, null, crossings);
+        }
+
+        PendingBinUpdate mergeNewer(PendingBinUpdate newer) {
+            List<FillCrossing> merged = crossings;
+            if (!newer.crossings.isEmpty()) {
+                merged = new ArrayList<>(crossings.size() + newer.crossings.size());
+                merged.addAll(crossings);
+                merged.addAll(newer.crossings);
+            }
+            return new PendingBinUpdate(
+                    binId,
+                    newer.levels != null ? newer.levels : levels,
+                    newer.levels != null ? newer.levelsAt : levelsAt,
+                    newer.location != null ? newer.location : location,
+                    newer.lastSeenAt != null ? newer.lastSeenAt : lastSeenAt,
+                    merged
+            );
+        }
+
+        PendingBinUpdate withoutLevels() {
+            return new PendingBinUpdate(binId, null, null, location, lastSeenAt, crossings);
+        }
+
+        /** Partial {@code $set} of the levels and liveness, or {@code null} if no levels are pending. */
+        Update toLevelsUpdate() {
+            if (levels == null) {
+                return null;
+            }
+            Update update = new Update()
+                    .set("plastic_level", levels.plastic())
+                    .set("paper_level", levels.paper())
+                    .set("glass_level", levels.glass());
+            if (lastSeenAt != null) {
+                update.set("last_seen_at", lastSeenAt);
+            }
+            return update;
+        }
+
+        /** Partial {@code $set} of the location, plus liveness when no levels carry it, or {@code null}. */
+        Update toOtherUpdate() {
+            boolean heartbeat = levels == null && lastSeenAt != null;
+            if (location == null && !heartbeat) {
+                return null;
+            }
+            Update update = new Update();
+            if (location != null) {
+                update.set("latitude", location.latitude())
+                        .set("longitude", location.longitude());
+            }
+            if (heartbeat) {
+                update.set("last_seen_at", lastSeenAt);
+            }
+            return update;
+        }
+    }
+}
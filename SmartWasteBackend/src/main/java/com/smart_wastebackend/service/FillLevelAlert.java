@@ -0,0 +1,5 @@
+package com.smart_wastebackend.service;
+
+/** A bin at or above the high fill level, as found by {@link HighFillSweepService}. */
+public record FillLevelAlert(String binId, String ownerId, int fillLevel) {
+}
@@ -0,0 +1,161 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.dto.HighFillSweepDTO;
+import com.smart_wastebackend.enums.SweepStatus;
+import com.smart_wastebackend.model.BinInventory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Admin-triggered sweep that notifies the owners (and admins) of every bin at or above the high
+ * fill level, e.g. after notifications were lost or the threshold logic changed.
+ * <p>
+ * The bins are streamed from a Mongo cursor with only the fields needed, so memory stays flat
+ * however large the fleet is, and handled in batches: one dedup query and one bulk insert of
+ * notifications per batch. The sweep runs on its own thread; only one runs at a time and its
+ * progress can be polled.
+ */
+@Service
+@Slf4j
+public class HighFillSweepService {
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationService notificationService;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "high-fill-sweep");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Sweep current;
+
+    @Value("${notifications.sweep.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    public HighFillSweepService(MongoTemplate mongoTemplate, NotificationService notificationService) {
+        this.mongoTemplate = mongoTemplate;
+        this.notificationService = notificationService;
+    }
+
+    /** Start a sweep, or return the one still running. */
+    public synchronized HighFillSweepDTO start() {
+        Sweep sweep = current;
+        if (sweep != null && sweep.status == SweepStatus.RUNNING) {
+            return sweep.toDTO();
+        }
+
+        sweep = new Sweep();
+        current = sweep;
+        Sweep started = sweep;
+        executor.execute(() -> run(started));
+        return sweep.toDTO();
+    }
+
+    /** Progress of the latest sweep, if one was started since boot. */
+    public Optional<HighFillSweepDTO> latest() {
+        Sweep sweep = current;
+        return sweep != null ? Optional.of(sweep.toDTO()) : Optional.empty();
+    }
+
+    private void run(Sweep sweep) {
+        try {
+            sweep.binsTotal.set(mongoTemplate.count(highFillQuery(), BinInventory.class));
+
+            Query query = highFillQuery().cursorBatchSize(batchSize);
+            query.fields().include("_id", "owner_id", "plastic_level", "paper_level", "glass_level");
+
+            List<FillLevelAlert> batch = new ArrayList<>(batchSize);
+            try (Stream<BinInventory> bins = mongoTemplate.stream(query, BinInventory.class)) {
+                bins.forEach(bin -> {
+                    batch.add(new FillLevelAlert(bin.getBinId(), bin.getOwnerId(), highLevel(bin)));
+                    if (batch.size() >= batchSize) {
+                        notifyBatch(sweep, batch);
+                    }
+                });
+            }
+            if (!batch.isEmpty()) {
+                notifyBatch(sweep, batch);
+            }
+
+            sweep.finish(SweepStatus.COMPLETED, null);
+            log.info("High fill sweep {} checked {} bins and alerted {}",
+                    sweep.id, sweep.binsScanned.get(), sweep.binsAlerted.get());
+        } catch (RuntimeException e) {
+            sweep.finish(SweepStatus.FAILED, e.getMessage());
+            log.error("High fill sweep {} failed after {} bins: {}", sweep.id, sweep.binsScanned.get(), e.getMessage());
+        }
+    }
+
+    private void notifyBatch(Sweep sweep, List<FillLevelAlert> batch) {
+        NotificationService.BatchResult result = notificationService.createFillLevelNotifications(batch);
+        sweep.binsScanned.addAndGet(batch.size());
+        sweep.binsAlerted.addAndGet(result.binsAlerted());
+        sweep.notificationsCreated.addAndGet(result.notificationsCreated());
+        batch.clear();
+    }
+
+    // Bins without an owner have nobody to notify
+    private static Query highFillQuery() {
+        return Query.query(Criteria.where("owner_id").ne(null).orOperator(
+                Criteria.where("plastic_level").gte(NotificationService.HIGH_FILL_LEVEL),
+                Criteria.where("paper_level").gte(NotificationService.HIGH_FILL_LEVEL),
+                Criteria.where("glass_level").gte(NotificationService.HIGH_FILL_LEVEL)));
+    }
+
+    // Same order as the live threshold check: plastic, then paper, then glass
+    private static int highLevel(BinInventory bin) {
+        for (Long level : new Long[]{bin.getPlasticLevel(), bin.getPaperLevel(), bin.getGlassLevel()}) {
+            if (level != null && level >= NotificationService.HIGH_FILL_LEVEL) {
+                return level.intValue();
+            }
+        }
+        return NotificationService.HIGH_FILL_LEVEL;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static final class Sweep {
+        private final String id = UUID.randomUUID().toString();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong binsTotal = new AtomicLong();
+        private final AtomicLong binsScanned = new AtomicLong();
+        private final AtomicLong binsAlerted = new AtomicLong();
+        private final AtomicLong notificationsCreated = new AtomicLong();
+        private volatile SweepStatus status = SweepStatus.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        void finish(SweepStatus finalStatus, String failure) {
+            error = failure;
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        HighFillSweepDTO toDTO() {
+            return new HighFillSweepDTO(id, status, startedAt, finishedAt, binsTotal.get(), binsScanned.get(),
+                    binsAlerted.get(), notificationsCreated.get(), error);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.model.IngestNodeHeartbeat;
+import com.smart_wastebackend.mqtt.IngestNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the ingest nodes sharing a broker split the bins completely and evenly.
+ * <p>
+ * Every {@code ingest.nodes.heartbeat-ms} each node writes its partitions and its message rate to
+ * {@code ingest_nodes} and reads back the nodes that reported within three intervals. Partitions
+ * no live node owns (their bins are not ingested) or several nodes own (their per-bin state is
+ * split) are logged as warnings, and so is a node load above {@code ingest.nodes.max-imbalance}
+ * times the mean. The same figures are exported as gauges, so any node can be asked.
+ */
+@Service
+@Slf4j
+public class IngestNodeRegistry {
+
+    // Below this total rate the spread says nothing about the hash
+    private static final double MIN_RATE_FOR_BALANCE = 1d;
+
+    private final IngestNode ingestNode;
+    private final MongoTemplate mongoTemplate;
+    private final long heartbeatMs;
+    private final double maxImbalance;
+
+    private long lastAt;
+    private long lastMessages;
+    private volatile Balance balance = new Balance(0, List.of(), List.of(), 1d);
+
+    @Autowired
+    public IngestNodeRegistry(
+            IngestNode ingestNode,
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${ingest.nodes.heartbeat-ms:15000}") long heartbeatMs,
+            @Value("${ingest.nodes.max-imbalance:1.5}") double maxImbalance
+    ) {
+        this.ingestNode = ingestNode;
+        this.mongoTemplate = mongoTemplate;
+        this.heartbeatMs = heartbeatMs;
+        this.maxImbalance = maxImbalance;
+
+        Gauge.builder("smartwaste.ingest.nodes.live", this, registry -> registry.balance.liveNodes())
+                .description("Ingest nodes that sent a heartbeat within three intervals")
+                .register(meterRegistry);
+        Gauge.builder("smartwaste.ingest.partitions.unowned", this, registry -> registry.balance.unowned().size())
+                .description("Bin partitions no live ingest node owns")
+                .register(meterRegistry);
+        Gauge.builder("smartwaste.ingest.partitions.overlapping", this, registry -> registry.balance.overlapping().size())
+                .description("Bin partitions owned by more than one live ingest node")
+                .register(meterRegistry);
+        Gauge.builder("smartwaste.ingest.nodes.imbalance", this, registry -> registry.balance.imbalance())
+                .description("Message rate of the busiest live ingest node divided by the mean")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Coverage and spread of the partitions over live nodes.
+     *
+     * @param imbalance busiest node's rate over the mean rate, 1 when idle
+     */
+    record Balance(int liveNodes, List<Integer> unowned, List<Integer> overlapping, double imbalance) {
+    }
+
+    @Scheduled(fixedDelayString = "${ingest.nodes.heartbeat-ms:15000}")
+    public void heartbeat() {
+        try {
+            long now = System.currentTimeMillis();
+            long messages = ingestNode.messages();
+            double rate = lastAt > 0 ? (messages - lastMessages) * 1000d / Math.max(1, now - lastAt) : 0d;
+            lastAt = now;
+            lastMessages = messages;
+
+            mongoTemplate.save(new IngestNodeHeartbeat(
+                    ingestNode.instanceId(),
+                    ingestNode.partitionCount(),
+                    ingestNode.ownedPartitions().stream().map(Integer::valueOf).toList(),
+                    rate,
+                    LocalDateTime.now()));
+
+            List<IngestNodeHeartbeat> live = mongoTemplate.find(
+                    Query.query(Criteria.where("heartbeat_at").gte(LocalDateTime.now().minus(Duration.ofMillis(3 * heartbeatMs)))),
+                    IngestNodeHeartbeat.class);
+            check(live);
+        } catch (RuntimeException e) {
+            // An exception escaping a scheduled task would cancel every later run
+            log.warn("Ingest node heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(ingestNode.instanceId())), IngestNodeHeartbeat.class);
+        } catch (RuntimeException e) {
+            log.warn("Could not remove the heartbeat of ingest node {}: {}", ingestNode.instanceId(), e.getMessage());
+        }
+    }
+
+    private void check(List<IngestNodeHeartbeat> live) {
+        for (IngestNodeHeartbeat node : live) {
+            if (node.getPartitionCount() == null || node.getPartitionCount() != ingestNode.partitionCount()) {
+                log.warn("Ingest node {} splits bins into {} partitions, this node into {}; bins are assigned inconsistently",
+                        node.getInstanceId(), node.getPartitionCount(), ingestNode.partitionCount());
+            }
+        }
+
+        Balance next = evaluate(live, ingestNode.partitionCount());
+        if (!next.unowned().isEmpty()) {
+            log.warn("Partitions {} are not owned by any live ingest node, their bins are not ingested", next.unowned());
+        }
+        if (!next.overlapping().isEmpty()) {
+            log.warn("Partitions {} are owned by more than one live ingest node, their bin state is split", next.overlapping());
+        }
+        if (next.imbalance() > maxImbalance) {
+            log.warn("Ingest load is unbalanced: the busiest of {} nodes handles {}x the mean rate",
+                    next.liveNodes(), String.format("%.2f", next.imbalance()));
+        }
+        balance = next;
+    }
+
+    static Balance evaluate(List<IngestNodeHeartbeat> live, int partitionCount) {
+        int[] owners = new int[partitionCount];
+        double total = 0;
+        double max = 0;
+        for (IngestNodeHeartbeat node : live) {
+            for (Integer partition : node.getPartitions()) {
+                if (partition >= 0 && partition < partitionCount) {
+                    owners[partition]++;
+                }
+            }
+            double rate = node.getRate() != null ? node.getRate() : 0d;
+            total += rate;
+            max = Math.max(max, rate);
+        }
+
+        List<Integer> unowned = new ArrayList<>();
+        List<Integer> overlapping = new ArrayList<>();
+        for (int p = 0; p < partitionCount; p++) {
+            if (owners[p] == 0) {
+                unowned.add(p);
+            } else if (owners[p] > 1) {
+                overlapping.add(p);
+            }
+        }
+
+        double imbalance = live.isEmpty() || total < MIN_RATE_FOR_BALANCE ? 1d : max / (total / live.size());
+        return new Balance(live.size(), unowned, overlapping, imbalance);
+    }
+}
@@ -35,7 +35,7 @@ public class MaintenanceRequestService {
 
     private final MaintenanceRequestRepository maintenanceRequestRepository;
     private final UserTableRepository userTableRepository;
-    private final NotificationService notificationService;
+    private final NotificationOutbox notificationOutbox;
     private final MongoTemplate mongoTemplate;
 
     public String createRequest(CreateMaintenanceRequestDTO requestDTO, String requesterId) {
@@ -62,7 +62,7 @@ public class MaintenanceRequestService {
             MaintenanceRequests saved = maintenanceRequestRepository.save(request);
 
             try {
-                notificationService.createMaintenanceRequestNotification(saved.getId(), saved.getBinId(), saved.getDescription(), requesterId);
+                notificationOutbox.enqueue(NotificationOutbox.maintenanceRequest(saved.getId(), saved.getBinId(), saved.getDescription(), requesterId));
             } catch (Exception ignored) {}
 
             return saved.getId();
@@ -141,13 +141,13 @@ public class MaintenanceRequestService {
             request.setResolvedAt(LocalDateTime.now());
 
             try {
-                notificationService.createMaintenanceCompletedNotification(
+                notificationOutbox.enqueue(NotificationOutbox.maintenanceCompleted(
                         request.getId(),
                         request.getBinId(),
                         request.getRequesterId(),
                         notes != null ? notes : "Issue resolved."
-                );
-                log.info("Completion notification sent to user: {}", request.getRequesterId());
+                ));
+                log.info("Completion notification queued for user: {}", request.getRequesterId());
             } catch (Exception e) {
                 log.error("Failed to send completion notification", e);
             }
@@ -1,9 +1,16 @@
 package com.smart_wastebackend.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.smart_wastebackend.dto.BinStatusDTO;
-import com.smart_wastebackend.exception.BinStatusNotFoundException;
+import com.smart_wastebackend.enums.IngestStage;
+import com.smart_wastebackend.mqtt.IngestMetrics;
+import com.smart_wastebackend.mqtt.IngestNode;
+import com.smart_wastebackend.mqtt.MqttTopicMatch;
+import com.smart_wastebackend.mqtt.MqttTopicRouter;
+import com.smart_wastebackend.mqtt.MqttTrafficRecorder;
+import com.smart_wastebackend.mqtt.PartitionedIngestExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,33 +20,54 @@ import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.core.MessageProducer;
 import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
 import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
 public class MqttMessageListener {
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private MqttTopicRouter topicRouter;
 
     @Autowired
-    private BinStatusService binStatusService;
+    private PartitionedIngestExecutor ingestExecutor;
 
     @Autowired
-    private BinStatusSocketService binStatusSocketService;
+    private MqttTrafficRecorder trafficRecorder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private IngestMetrics ingestMetrics;
+
+    @Autowired
+    private IngestNode ingestNode;
+
+    private Timer ingestLatency;
+    private Counter messagesReceived;
 
     @Value("${mqtt.client-id}")
     private String clientId;
 
-    @Value("${mqtt.status-topic}")
-    private String statusTopic;
-
-    @Value("${mqtt.location-topic}")
-    private String locationTopic;
+    @PostConstruct
+    void init() {
+        messagesReceived = Counter.builder("smartwaste.mqtt.messages.received")
+                .description("MQTT messages delivered to this node")
+                .tag("instance", ingestNode.instanceId())
+                .register(meterRegistry);
+        ingestLatency = Timer.builder("smartwaste.ingest.latency")
+                .description("End-to-end time from MQTT delivery until the handler finished")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
 
     /** Create inbound channel for MQTT messages */
     @Bean
@@ -47,25 +75,36 @@ public class MqttMessageListener {
         return new DirectChannel();
     }
 
-    /** Subscribe to topics from the broker */
+    /** Subscribe to the topics of every registered MqttTopicHandler */
     @Bean
     public MessageProducer inbound(
             MqttPahoClientFactory clientFactory,
             DirectChannel mqttInboundChannel // <-- FIX #1: Inject the channel bean
     ) {
+        // Not a $share subscription: per-bin state lives in the memory of the node owning the bin,
+        // so readings are split by bin partition. Topics with a {partition} level are only
+        // subscribed for the owned partitions; on the others every node receives every message.
+        String[] topicFilters = topicRouter.topicFilters("partition", ingestNode.ownedPartitions());
+
+        // The broker drops an existing session when a second client connects with the same id
         MqttPahoMessageDrivenChannelAdapter adapter = new MqttPahoMessageDrivenChannelAdapter(
-                clientId + "_listener",
+                clientId + "_listener_" + ingestNode.instanceId(),
                 clientFactory,
-                statusTopic,
-                locationTopic
+                topicFilters
         );
 
         adapter.setCompletionTimeout(5000);
         adapter.setQos(1);
 
+        // Keep the raw bytes: handlers decode JSON or binary payloads without an intermediate String
+        DefaultPahoMessageConverter converter = new DefaultPahoMessageConverter();
+        converter.setPayloadAsBytes(true);
+        adapter.setConverter(converter);
+
         adapter.setOutputChannel(mqttInboundChannel); // <-- FIX #2: Use the injected bean
 
-        log.info("MQTT inbound adapter initialized for topics: {}, {}", statusTopic, locationTopic);
+        log.info("MQTT inbound adapter initialized for instance {} on topics: {}",
+                ingestNode.instanceId(), Arrays.toString(topicFilters));
 
         return adapter;
     }
@@ -75,55 +114,54 @@ public class MqttMessageListener {
     @ServiceActivator(inputChannel = "mqttInboundChannel")
     public MessageHandler handleMessage() {
         return (Message<?> message) -> {
+            long receivedAt = System.nanoTime();
+            messagesReceived.increment();
             String topic = message.getHeaders().get("mqtt_receivedTopic").toString();
-            String payload = (message.getPayload() instanceof byte[])
-                    ? new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)
-                    : message.getPayload().toString();
-
-            log.info("MQTT Message Received - Topic: {}, Payload: {}", topic, payload);
+            byte[] payload = (message.getPayload() instanceof byte[] bytes)
+                    ? bytes
+                    : message.getPayload().toString().getBytes(StandardCharsets.UTF_8);
+
+            log.debug("MQTT Message Received - Topic: {}, Payload: {} bytes", topic, payload.length);
+            trafficRecorder.record(topic, payload);
+
+            MqttTopicMatch match = topicRouter.match(topic);
+            if (match == null) {
+                ingestMetrics.record(IngestStage.RECEIVE, IngestMetrics.TOPIC_UNKNOWN, "unhandled", receivedAt);
+                log.warn("Ignoring MQTT message on unhandled topic: {}", topic);
+                return;
+            }
 
-            try {
-                if (topic.matches(statusTopic.replace("+", "[^/]+"))) {
-                    handleStatusMessage(topic, payload);
-                } else if (topic.matches(locationTopic.replace("+", "[^/]+"))) {
-                    handleLocationMessage(topic, payload);
+            String binId = match.variable("binId");
+            if (binId != null && !ingestNode.owns(binId)) {
+                // Another node's bin. Expected on topics without {partition}; on a partition topic
+                // the device published under the wrong partition and the owner never sees it.
+                boolean misrouted = match.variable("partition") != null;
+                if (misrouted) {
+                    log.warn("Dropping message for bin {} on {}: the bin belongs to partition {}",
+                            binId, topic, ingestNode.partitionOf(binId));
                 }
-            } catch (Exception e) {
-                log.error("Error processing MQTT message from topic '{}': {}", topic, e.getMessage(), e);
+                ingestMetrics.record(IngestStage.RECEIVE, match.handler().topicType(),
+                        misrouted ? "misrouted" : "not_owned", receivedAt);
+                return;
+            }
+            if (binId != null) {
+                ingestNode.recordMessage(binId);
             }
+
+            // Hand off to the bin's lane so a slow bin never stalls the Paho callback thread.
+            // A newer message on the same topic may supersede this one while it is queued.
+            ingestExecutor.execute(binId != null ? binId : topic, topic, () -> dispatch(match, payload, receivedAt));
+            ingestMetrics.record(IngestStage.RECEIVE, match.handler().topicType(), "queued", receivedAt);
         };
     }
 
-    /** Process bin status JSON messages */
-    private void handleStatusMessage(String topic, String payload) {
+    private void dispatch(MqttTopicMatch match, byte[] payload, long receivedAt) {
         try {
-            String binId = extractBinIdFromTopic(topic);
-            BinStatusDTO statusDto = objectMapper.readValue(payload, BinStatusDTO.class);
-            statusDto.setBinId(binId);
-
-            binStatusService.updateBinLevels(statusDto);
-            binStatusSocketService.sendBinStatusToUser(binId, statusDto);
-
-            log.info("Processed bin status for ID: {}", binId);
-        } catch (IllegalArgumentException | JsonProcessingException | BinStatusNotFoundException e) {
-            log.warn("Failed to process status message for topic '{}'. Error: {}", topic, e.getMessage());
-        }
-    }
-
-    /** Process bin location messages */
-    private void handleLocationMessage(String topic, String payload) {
-        String binId = extractBinIdFromTopic(topic);
-        log.info("Received location for bin {}: {}", binId, payload);
-        // TODO: Parse and save GPS data if needed
-    }
-
-    /** Extract bin ID from MQTT topic (e.g., smartwaste/bin/{binId}/status) */
-    private String extractBinIdFromTopic(String topic) {
-        String[] parts = topic.split("/");
-        if (parts.length >= 3) {
-            return parts[2];
-        } else {
-            throw new IllegalArgumentException("Invalid topic format: " + topic);
+            match.handler().handle(match, payload);
+        } catch (Exception e) {
+            log.error("Error processing MQTT message from topic '{}': {}", match.topic(), e.getMessage(), e);
+        } finally {
+            ingestLatency.record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
         }
     }
-}
\ No newline at end of file
+}
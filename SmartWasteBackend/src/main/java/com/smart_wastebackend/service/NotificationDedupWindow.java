@@ -0,0 +1,198 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.enums.NotificationType;
+import com.smart_wastebackend.model.Notification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Remembers which (bin, type, recipient) alerts were sent recently, so an alert is not repeated
+ * while the previous one is unread and younger than the window.
+ * <p>
+ * High fill alerts are keyed by the bin owner, and the admins' copies are sent along with the
+ * owner's. Only the owner's unread alert holds back the next one: an admin who has not read
+ * their copy no longer suppresses a new alert for a bin whose owner has read theirs.
+ * <p>
+ * A hit in the map suppresses the alert without touching Mongo. Every miss falls back to an
+ * indexed query for the newest unread matching notification, so alerts this map does not know
+ * about (sent before the last restart, or saved by another process) still count once they are
+ * stored; the result is cached in the map for the rest of its window. Reading or deleting a
+ * notification reopens its key.
+ */
+@Component
+@Slf4j
+public class NotificationDedupWindow {
+
+    private final MongoTemplate mongoTemplate;
+    // Key -> epoch millis until which the alert is suppressed
+    private final Map<Key, Long> suppressedUntil = new ConcurrentHashMap<>();
+    private final Duration window;
+
+    @Autowired
+    public NotificationDedupWindow(
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${notifications.dedup.window:PT24H}") Duration window
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.window = window;
+        meterRegistry.gaugeMapSize("smartwaste.notification.dedup.keys", Tags.empty(), suppressedUntil);
+    }
+
+    @PostConstruct
+    public void createIndex() {
+        try {
+            mongoTemplate.indexOps(Notification.class).createIndex(new Index()
+                    .on("bin_id", Sort.Direction.ASC)
+                    .on("notification_type", Sort.Direction.ASC)
+                    .on("recipient_id", Sort.Direction.ASC)
+                    .on("is_read", Sort.Direction.ASC)
+                    .on("created_at", Sort.Direction.DESC)
+                    .named("bin_type_recipient_unread"));
+        } catch (RuntimeException e) {
+            log.error("Could not create dedup index on notifications: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claims the alert if no unread one was sent inside the window.
+     *
+     * @return {@code false} if the alert is a duplicate and must not be sent
+     */
+    public boolean tryAcquire(String binId, NotificationType type, String recipientId) {
+        Key key = new Key(binId, type, recipientId);
+        long now = System.currentTimeMillis();
+        long windowMs = window.toMillis();
+
+        Long until = suppressedUntil.get(key);
+        if (until != null && until > now) {
+            return false;
+        }
+        long sentAt = newestUnreadSince(key, now - windowMs);
+        return claim(key, sentAt, now, windowMs);
+    }
+
+    /**
+     * Batch form of {@link #tryAcquire} for high fill alerts: all misses are checked with one
+     * query instead of one each.
+     *
+     * @return the alerts that were claimed and must be sent
+     */
+    public List<FillLevelAlert> tryAcquireFillLevel(List<FillLevelAlert> alerts) {
+        long now = System.currentTimeMillis();
+        long windowMs = window.toMillis();
+
+        List<Key> misses = new ArrayList<>();
+        for (FillLevelAlert alert : alerts) {
+            Key key = new Key(alert.binId(), NotificationType.FILL_LEVEL_HIGH, alert.ownerId());
+            Long until = suppressedUntil.get(key);
+            if (until == null || until <= now) {
+                misses.add(key);
+            }
+        }
+        Map<Key, Long> sentAt = misses.isEmpty() ? Map.of() : newestUnreadSince(misses, now - windowMs);
+
+        List<FillLevelAlert> claimed = new ArrayList<>();
+        for (FillLevelAlert alert : alerts) {
+            Key key = new Key(alert.binId(), NotificationType.FILL_LEVEL_HIGH, alert.ownerId());
+            if (claim(key, sentAt.getOrDefault(key, 0L), now, windowMs)) {
+                claimed.add(alert);
+            }
+        }
+        return claimed;
+    }
+
+    // sentAt: newest unread matching notification in Mongo (epoch millis), or 0 if there is none
+    private boolean claim(Key key, long sentAt, long now, long windowMs) {
+        if (sentAt > 0) {
+            suppressedUntil.merge(key, sentAt + windowMs, Math::max);
+            return false;
+        }
+
+        AtomicBoolean acquired = new AtomicBoolean();
+        suppressedUntil.compute(key, (k, current) -> {
+            if (current != null && current > now) {
+                return current;
+            }
+            acquired.set(true);
+            return now + windowMs;
+        });
+        return acquired.get();
+    }
+
+    /** Reopen the key, e.g. when the notification was read or sending it failed. */
+    public void release(String binId, NotificationType type, String recipientId) {
+        suppressedUntil.remove(new Key(binId, type, recipientId));
+    }
+
+    public void releaseRecipient(String recipientId) {
+        suppressedUntil.keySet().removeIf(key -> key.recipientId().equals(recipientId));
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.dedup.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        suppressedUntil.values().removeIf(until -> until <= now);
+    }
+
+    // Epoch millis of the newest matching unread notification created after the cutoff, or 0
+    private long newestUnreadSince(Key key, long cutoff) {
+        Query query = Query.query(Criteria.where("binId").is(key.binId())
+                        .and("notificationType").is(key.type())
+                        .and("recipientId").is(key.recipientId())
+                        .and("isRead").is(false)
+                        .and("createdAt").gt(toDateTime(cutoff)))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"));
+        query.fields().include("createdAt");
+
+        Notification last = mongoTemplate.findOne(query, Notification.class);
+        return last != null ? last.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+
+    // Newest matching unread notification created after the cutoff per key, for keys that have one
+    private Map<Key, Long> newestUnreadSince(List<Key> keys, long cutoff) {
+        Query query = Query.query(Criteria.where("binId").in(keys.stream().map(Key::binId).distinct().toList())
+                .and("notificationType").is(NotificationType.FILL_LEVEL_HIGH)
+                .and("recipientId").in(keys.stream().map(Key::recipientId).distinct().toList())
+                .and("isRead").is(false)
+                .and("createdAt").gt(toDateTime(cutoff)));
+        query.fields().include("binId", "notificationType", "recipientId", "createdAt");
+
+        Map<Key, Long> newest = new HashMap<>();
+        for (Notification notification : mongoTemplate.find(query, Notification.class)) {
+            long createdAt = notification.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            newest.merge(new Key(notification.getBinId(), notification.getNotificationType(), notification.getRecipientId()),
+                    createdAt, Math::max);
+        }
+        return newest;
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private record Key(String binId, NotificationType type, String recipientId) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.enums.NotificationType;
+import com.smart_wastebackend.model.NotificationOutboxEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records notifications to be sent instead of sending them on the caller's thread. Each entry is
+ * one insert into {@code notification_outbox}, made in the caller's unit of work (so it joins a
+ * Mongo transaction when there is one); {@link NotificationOutboxDispatcher} creates the
+ * notifications and pushes them in the background.
+ */
+@Service
+public class NotificationOutbox {
+
+    private final MongoTemplate mongoTemplate;
+    private final Counter enqueued;
+
+    @Autowired
+    public NotificationOutbox(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.enqueued = Counter.builder("smartwaste.notification.outbox.enqueued")
+                .description("Notifications written to the outbox")
+                .register(meterRegistry);
+    }
+
+    public void enqueue(NotificationOutboxEntry entry) {
+        mongoTemplate.insert(entry);
+        enqueued.increment();
+    }
+
+    /** One bulk insert for all the entries. */
+    public void enqueueAll(List<NotificationOutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        mongoTemplate.insert(entries, NotificationOutboxEntry.class);
+        enqueued.increment(entries.size());
+    }
+
+    public static NotificationOutboxEntry fillLevel(String binId, int fillLevel, String binOwnerId) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("bin_id", binId);
+        payload.put("fill_level", fillLevel);
+        payload.put("bin_owner_id", binOwnerId);
+        return entry(NotificationType.FILL_LEVEL_HIGH, payload);
+    }
+
+    public static NotificationOutboxEntry collectionDate(String binId, String binOwnerId, LocalDate collectionDate) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("bin_id", binId);
+        payload.put("bin_owner_id", binOwnerId);
+        payload.put("collection_date", collectionDate.toString());
+        return entry(NotificationType.COLLECTION_DATE, payload);
+    }
+
+    public static NotificationOutboxEntry maintenanceRequest(String maintenanceRequestId, String binId,
+                                                             String description, String requesterId) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("maintenance_request_id", maintenanceRequestId);
+        payload.put("bin_id", binId);
+        payload.put("description", description);
+        payload.put("requester_id", requesterId);
+        return entry(NotificationType.MAINTENANCE_REQUEST, payload);
+    }
+
+    public static NotificationOutboxEntry maintenanceCompleted(String maintenanceRequestId, String binId,
+                                                               String requesterId, String resolution) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("maintenance_request_id", maintenanceRequestId);
+        payload.put("bin_id", binId);
+        payload.put("requester_id", requesterId);
+        payload.put("resolution", resolution);
+        return entry(NotificationType.MAINTENANCE_COMPLETED, payload);
+    }
+
+    private static NotificationOutboxEntry entry(NotificationType type, Map<String, Object> payload) {
+        return NotificationOutboxEntry.builder()
+                .notificationType(type)
+                .payload(payload)
+                .build();
+    }
+}
@@ -0,0 +1,284 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.enums.OutboxStatus;
+import com.smart_wastebackend.model.NotificationOutboxEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains {@code notification_outbox}: claims due entries in batches, creates and pushes each
+ * notification on a small worker pool, deletes the entries that went through and reschedules
+ * the others with exponential backoff until {@code max-attempts} is reached.
+ * <p>
+ * Claiming is an {@code updateMulti} guarded by the entry's status, so several backend nodes can
+ * dispatch from the same outbox. An entry whose node died while holding it is reclaimed once its
+ * lock expires. Notifications get ids derived from the entry id, so an entry that is dispatched
+ * again (reclaimed, or retried after a partial insert) skips the notifications already created.
+ */
+@Component
+@Slf4j
+public class NotificationOutboxDispatcher {
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationService notificationService;
+    private final ExecutorService workers;
+    // Own poller thread, so a long drain does not hold up the shared @Scheduled thread
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-outbox-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Timer lag;
+    private final Timer batchTimer;
+    private final Counter dispatched;
+    private final Counter retried;
+    private final Counter failed;
+
+    @Value("${notifications.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notifications.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${notifications.outbox.initial-backoff:PT1S}")
+    private Duration initialBackoff;
+
+    @Value("${notifications.outbox.max-backoff:PT5M}")
+    private Duration maxBackoff;
+
+    @Value("${notifications.outbox.lock-timeout:PT1M}")
+    private Duration lockTimeout;
+
+    @Value("${notifications.outbox.poll-interval-ms:250}")
+    private long pollIntervalMs;
+
+    @Autowired
+    public NotificationOutboxDispatcher(
+            MongoTemplate mongoTemplate,
+            NotificationService notificationService,
+            MeterRegistry meterRegistry,
+            @Value("${notifications.outbox.workers:4}") int workerCount
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.notificationService = notificationService;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "notification-outbox-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.lag = Timer.builder("smartwaste.notification.outbox.lag")
+                .description("Time from writing a notification to the outbox until it was sent")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("smartwaste.notification.outbox.batch.latency")
+                .description("Time taken to dispatch one claimed outbox batch")
+                .register(meterRegistry);
+        this.dispatched = outcome(meterRegistry, "ok");
+        this.retried = outcome(meterRegistry, "retry");
+        this.failed = outcome(meterRegistry, "failed");
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("smartwaste.notification.outbox.dispatched")
+                .description("Outbox entries processed by the dispatcher")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        createIndexes();
+        poller.scheduleWithFixedDelay(this::dispatch, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void createIndexes() {
+        try {
+            mongoTemplate.indexOps(NotificationOutboxEntry.class).createIndex(new Index()
+                    .on("status", Sort.Direction.ASC)
+                    .on("next_attempt_at", Sort.Direction.ASC));
+            mongoTemplate.indexOps(NotificationOutboxEntry.class).createIndex(new Index()
+                    .on("claim_token", Sort.Direction.ASC)
+                    .sparse());
+        } catch (RuntimeException e) {
+            log.error("Could not create indexes on notification_outbox: {}", e.getMessage());
+        }
+    }
+
+    public void dispatch() {
+        try {
+            List<NotificationOutboxEntry> batch;
+            do {
+                batch = claim();
+                if (!batch.isEmpty()) {
+                    dispatchBatch(batch);
+                }
+            } while (batch.size() >= batchSize);
+        } catch (RuntimeException e) {
+            // Thrown out of the poller it would cancel every later run
+            log.error("Notification outbox dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    private List<NotificationOutboxEntry> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        Query due = Query.query(dueCriteria(now))
+                .with(Sort.by(Sort.Direction.ASC, "next_attempt_at"))
+                .limit(batchSize);
+        due.fields().include("_id");
+        List<String> ids = mongoTemplate.find(due, NotificationOutboxEntry.class).stream()
+                .map(NotificationOutboxEntry::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Only the entries still due when the update runs are taken, another node may have claimed the rest
+        String token = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(Criteria.where("_id").in(ids), dueCriteria(now))),
+                new Update()
+                        .set("status", OutboxStatus.PROCESSING)
+                        .set("claim_token", token)
+                        .set("locked_until", now.plus(lockTimeout)),
+                NotificationOutboxEntry.class);
+        return mongoTemplate.find(Query.query(Criteria.where("claim_token").is(token)), NotificationOutboxEntry.class);
+    }
+
+    private static Criteria dueCriteria(LocalDateTime now) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(OutboxStatus.PENDING).and("next_attempt_at").lte(now),
+                Criteria.where("status").is(OutboxStatus.PROCESSING).and("locked_until").lt(now));
+    }
+
+    private void dispatchBatch(List<NotificationOutboxEntry> batch) {
+        long start = System.nanoTime();
+
+        List<CompletableFuture<String>> results = new ArrayList<>(batch.size());
+        for (NotificationOutboxEntry entry : batch) {
+            results.add(CompletableFuture.supplyAsync(() -> send(entry), workers));
+        }
+
+        List<String> sent = new ArrayList<>(batch.size());
+        BulkOperations failures = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationOutboxEntry.class);
+        int failureCount = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            NotificationOutboxEntry entry = batch.get(i);
+            String error = results.get(i).join();
+            if (error == null) {
+                sent.add(entry.getId());
+                lag.record(Duration.between(entry.getCreatedAt(), LocalDateTime.now()));
+                dispatched.increment();
+            } else {
+                failures.updateOne(Query.query(Criteria.where("_id").is(entry.getId())), reschedule(entry, error));
+                failureCount++;
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(sent)), NotificationOutboxEntry.class);
+        }
+        if (failureCount > 0) {
+            failures.execute();
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /** Create and push the notification; returns the error message, or {@code null} on success. */
+    private String send(NotificationOutboxEntry entry) {
+        Map<String, Object> payload = entry.getPayload();
+        try {
+            switch (entry.getNotificationType()) {
+                case FILL_LEVEL_HIGH -> notificationService.createFillLevelNotification(
+                        entry.getId(),
+                        (String) payload.get("bin_id"),
+                        ((Number) payload.get("fill_level")).intValue(),
+                        (String) payload.get("bin_owner_id"));
+                case COLLECTION_DATE -> notificationService.createCollectionDateNotification(
+                        entry.getId(),
+                        (String) payload.get("bin_id"),
+                        (String) payload.get("bin_owner_id"),
+                        LocalDate.parse((String) payload.get("collection_date")));
+                case MAINTENANCE_REQUEST -> notificationService.createMaintenanceRequestNotification(
+                        entry.getId(),
+                        (String) payload.get("maintenance_request_id"),
+                        (String) payload.get("bin_id"),
+                        (String) payload.get("description"),
+                        (String) payload.get("requester_id"));
+                case MAINTENANCE_COMPLETED -> notificationService.createMaintenanceCompletedNotification(
+                        entry.getId(),
+                        (String) payload.get("maintenance_request_id"),
+                        (String) payload.get("bin_id"),
+                        (String) payload.get("requester_id"),
+                        (String) payload.get("resolution"));
+                default -> throw new IllegalArgumentException("No outbox handler for " + entry.getNotificationType());
+            }
+            return null;
+        } catch (RuntimeException e) {
+            log.warn("Outbox entry {} ({}) failed on attempt {}: {}",
+                    entry.getId(), entry.getNotificationType(), entry.getAttempts() + 1, e.getMessage());
+            return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+    }
+
+    private Update reschedule(NotificationOutboxEntry entry, String error) {
+        int attempts = entry.getAttempts() + 1;
+        Update update = new Update()
+                .set("attempts", attempts)
+                .set("last_error", error)
+                .unset("claim_token")
+                .unset("locked_until");
+        if (attempts >= maxAttempts) {
+            failed.increment();
+            log.error("Giving up on outbox entry {} ({}) after {} attempts: {}",
+                    entry.getId(), entry.getNotificationType(), attempts, error);
+            return update.set("status", OutboxStatus.FAILED);
+        }
+
+        retried.increment();
+        long backoffMs = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempts - 1, 20));
+        return update
+                .set("status", OutboxStatus.PENDING)
+                .set("next_attempt_at", LocalDateTime.now().plus(Duration.ofMillis(backoffMs)));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        poller.shutdown();
+        poller.awaitTermination(10, TimeUnit.SECONDS);
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -1,22 +1,30 @@
 package com.smart_wastebackend.service;
 
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.UpdateResult;
 import com.smart_wastebackend.dto.*;
 import com.smart_wastebackend.model.MaintenanceRequest;
 import com.smart_wastebackend.model.Notification;
-import com.smart_wastebackend.model.UserTable;
 import com.smart_wastebackend.enums.NotificationType;
 import com.smart_wastebackend.enums.Priority;
+import com.smart_wastebackend.enums.IngestStage;
 import com.smart_wastebackend.enums.UserRoleEnum;
+import com.smart_wastebackend.mqtt.IngestMetrics;
 import com.smart_wastebackend.repository.MaintenanceRequestRepository;
 import com.smart_wastebackend.repository.NotificationRepository;
-import com.smart_wastebackend.repository.UserTableRepository;
 import com.smart_wastebackend.websocket.NotificationWebSocketHandler;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,9 +32,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @Transactional
@@ -34,28 +45,49 @@ import java.util.stream.Collectors;
 @Slf4j
 public class NotificationService {
 
+    /** Fill level (percent) at which a bin's owner and the admins are notified. */
+    public static final int HIGH_FILL_LEVEL = 90;
+
+    private static final int DUPLICATE_KEY = 11000;
+
     private final NotificationRepository notificationRepository;
-    private final UserTableRepository userTableRepository;
+    private final AdminRosterCache adminRosterCache;
+    private final NotificationDedupWindow dedupWindow;
+    private final UnreadCounters unreadCounters;
     private final NotificationWebSocketHandler webSocketHandler;
     private final MongoTemplate mongoTemplate;
+    private final IngestMetrics ingestMetrics;
+
+    @PostConstruct
+    public void createIndexes() {
+        try {
+            // Per-user listing and filtering, and the total/today/week stats counts
+            mongoTemplate.indexOps(Notification.class).createIndex(new Index()
+                    .on("recipient_id", Sort.Direction.ASC)
+                    .on("recipient_type", Sort.Direction.ASC)
+                    .on("created_at", Sort.Direction.DESC));
+            // The high priority stats count
+            mongoTemplate.indexOps(Notification.class).createIndex(new Index()
+                    .on("recipient_id", Sort.Direction.ASC)
+                    .on("recipient_type", Sort.Direction.ASC)
+                    .on("priority", Sort.Direction.ASC));
+        } catch (RuntimeException e) {
+            log.error("Could not create indexes on notifications: {}", e.getMessage());
+        }
+    }
 
     // Create notification for high fill level
-    public void createFillLevelNotification(String binId, int fillLevel, String binOwnerId) {
-        if (fillLevel >= 90) {
+    public void createFillLevelNotification(String outboxEntryId, String binId, int fillLevel, String binOwnerId) {
+        if (fillLevel >= HIGH_FILL_LEVEL) {
             Map<String, Object> metadata = Map.of(
                     "fill_level", fillLevel,
-                    "threshold", 90,
+                    "threshold", HIGH_FILL_LEVEL,
                     "alert_type", "HIGH_FILL_LEVEL"
             );
 
-            List<Notification> existingNotifications = notificationRepository
-                    .findByBinIdAndNotificationType(binId, NotificationType.FILL_LEVEL_HIGH);
-
-            boolean hasUnreadHighFillNotification = existingNotifications.stream()
-                    .anyMatch(n -> !n.getIsRead() && n.getCreatedAt().isAfter(LocalDateTime.now().minusHours(24)));
-
-            if (!hasUnreadHighFillNotification) {
-                Notification binOwnerNotification = createNotification(
+            if (dedupWindow.tryAcquire(binId, NotificationType.FILL_LEVEL_HIGH, binOwnerId)) {
+                List<Notification> notifications = new ArrayList<>();
+                notifications.add(createNotification(
                         NotificationType.FILL_LEVEL_HIGH,
                         "Bin Almost Full",
                         String.format("Your bin %s is %d%% full and needs collection", binId, fillLevel),
@@ -65,64 +97,113 @@ public class NotificationService {
                         Priority.HIGH,
                         metadata,
                         LocalDateTime.now().plusDays(7)
-                );
-
-                notificationRepository.save(binOwnerNotification);
-                sendRealTimeNotification(binOwnerId, convertToDTO(binOwnerNotification));
-
-                List<UserTable> admins = userTableRepository.findByRole(UserRoleEnum.ROLE_ADMIN);
-                for (UserTable admin : admins) {
-                    Notification adminNotification = createNotification(
-                            NotificationType.FILL_LEVEL_HIGH,
-                            "High Fill Level Alert",
-                            String.format("Bin %s has reached %d%% capacity", binId, fillLevel),
-                            UserRoleEnum.ROLE_ADMIN,
-                            admin.getId(),
-                            binId,
-                            Priority.HIGH,
-                            metadata,
-                            LocalDateTime.now().plusDays(7)
-                    );
-
-                    notificationRepository.save(adminNotification);
-                    sendRealTimeNotification(admin.getId(), convertToDTO(adminNotification));
+                ));
+                notifications.addAll(createAdminFillLevelNotifications(binId, fillLevel, metadata));
+                assignOutboxIds(notifications, outboxEntryId);
+
+                try {
+                    saveAndPush(notifications);
+                } catch (RuntimeException e) {
+                    dedupWindow.release(binId, NotificationType.FILL_LEVEL_HIGH, binOwnerId);
+                    throw e;
                 }
             }
         }
     }
 
+    /**
+     * Batch version of {@link #createFillLevelNotification} for the high fill sweep: skips bins whose
+     * owner still has an unread high fill notification inside the dedup window, then saves the
+     * owner and admin notifications in one bulk insert.
+     */
+    public BatchResult createFillLevelNotifications(List<FillLevelAlert> alerts) {
+        List<FillLevelAlert> toNotify = dedupWindow.tryAcquireFillLevel(alerts);
+        if (toNotify.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+
+        List<Notification> notifications = new ArrayList<>();
+        for (FillLevelAlert alert : toNotify) {
+            Map<String, Object> metadata = Map.of(
+                    "fill_level", alert.fillLevel(),
+                    "threshold", HIGH_FILL_LEVEL,
+                    "alert_type", "HIGH_FILL_LEVEL"
+            );
+            notifications.add(createNotification(
+                    NotificationType.FILL_LEVEL_HIGH,
+                    "Bin Almost Full",
+                    String.format("Your bin %s is %d%% full and needs collection", alert.binId(), alert.fillLevel()),
+                    UserRoleEnum.ROLE_BIN_OWNER,
+                    alert.ownerId(),
+                    alert.binId(),
+                    Priority.HIGH,
+                    metadata,
+                    LocalDateTime.now().plusDays(7)
+            ));
+            notifications.addAll(createAdminFillLevelNotifications(alert.binId(), alert.fillLevel(), metadata));
+        }
+
+        try {
+            saveAndPush(notifications);
+        } catch (RuntimeException e) {
+            toNotify.forEach(alert -> dedupWindow.release(alert.binId(), NotificationType.FILL_LEVEL_HIGH, alert.ownerId()));
+            throw e;
+        }
+        return new BatchResult(toNotify.size(), notifications.size());
+    }
+
+    public record BatchResult(int binsAlerted, int notificationsCreated) {
+    }
+
+    private List<Notification> createAdminFillLevelNotifications(String binId, int fillLevel, Map<String, Object> metadata) {
+        return adminRosterCache.adminIds().stream()
+                .map(adminId -> createNotification(
+                        NotificationType.FILL_LEVEL_HIGH,
+                        "High Fill Level Alert",
+                        String.format("Bin %s has reached %d%% capacity", binId, fillLevel),
+                        UserRoleEnum.ROLE_ADMIN,
+                        adminId,
+                        binId,
+                        Priority.HIGH,
+                        metadata,
+                        LocalDateTime.now().plusDays(7)
+                ))
+                .toList();
+    }
+
     // Create maintenance request notification (For Admins)
-    public void createMaintenanceRequestNotification(String maintenanceRequestId, String binId,
+    public void createMaintenanceRequestNotification(String outboxEntryId, String maintenanceRequestId, String binId,
                                                      String description, String requesterId) {
-        List<UserTable> admins = userTableRepository.findByRole(UserRoleEnum.ROLE_ADMIN);
-
         Map<String, Object> metadata = Map.of(
                 "requester_id", requesterId,
                 "description", description,
                 "request_type", "MAINTENANCE"
         );
 
-        for (UserTable admin : admins) {
+        List<Notification> notifications = new ArrayList<>();
+        for (String adminId : adminRosterCache.adminIds()) {
             Notification notification = createNotification(
                     NotificationType.MAINTENANCE_REQUEST,
                     "New Maintenance Request",
                     String.format("Maintenance request for bin %s: %s", binId, description),
                     UserRoleEnum.ROLE_ADMIN,
-                    admin.getId(),
+                    adminId,
                     binId,
                     Priority.MEDIUM,
                     metadata,
                     null
             );
             notification.setMaintenanceRequestId(maintenanceRequestId);
-
-            notificationRepository.save(notification);
-            sendRealTimeNotification(admin.getId(), convertToDTO(notification));
+            notifications.add(notification);
         }
+
+        assignOutboxIds(notifications, outboxEntryId);
+        saveAndPush(notifications);
     }
 
     // Create collection date notification
-    public void createCollectionDateNotification(String binId, String binOwnerId, LocalDate collectionDate) {
+    public void createCollectionDateNotification(String outboxEntryId, String binId, String binOwnerId,
+                                                 LocalDate collectionDate) {
         Map<String, Object> metadata = Map.of(
                 "collection_date", collectionDate.toString(),
                 "notification_type", "COLLECTION_REMINDER"
@@ -140,12 +221,12 @@ public class NotificationService {
                 collectionDate.atTime(23, 59)
         );
 
-        notificationRepository.save(notification);
-        sendRealTimeNotification(binOwnerId, convertToDTO(notification));
+        assignOutboxIds(List.of(notification), outboxEntryId);
+        saveAndPush(List.of(notification));
     }
 
     // ✅ This method is triggered when Admin marks request as COMPLETED
-    public void createMaintenanceCompletedNotification(String maintenanceRequestId, String binId,
+    public void createMaintenanceCompletedNotification(String outboxEntryId, String maintenanceRequestId, String binId,
                                                        String requesterId, String resolution) {
         Map<String, Object> metadata = Map.of(
                 "resolution", resolution != null ? resolution : "Resolved",
@@ -165,8 +246,8 @@ public class NotificationService {
         );
         notification.setMaintenanceRequestId(maintenanceRequestId);
 
-        notificationRepository.save(notification);
-        sendRealTimeNotification(requesterId, convertToDTO(notification));
+        assignOutboxIds(List.of(notification), outboxEntryId);
+        saveAndPush(List.of(notification));
     }
 
     public Page<NotificationDTO> getNotificationsWithFilters(String userId, UserRoleEnum userRole,
@@ -230,55 +311,57 @@ public class NotificationService {
             throw new RuntimeException("Unauthorized access to notification");
         }
 
-        if (!notification.getIsRead()) {
-            notification.setIsRead(true);
-            notification.setReadAt(LocalDateTime.now());
-            notificationRepository.save(notification);
+        // Only the request that actually flips is_read counts it, so concurrent reads decrement once
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(notificationId).and("is_read").is(false)),
+                new Update().set("is_read", true).set("read_at", LocalDateTime.now()),
+                Notification.class);
+        if (result.getModifiedCount() > 0) {
+            dedupWindow.release(notification.getBinId(), notification.getNotificationType(), userId);
+            unreadCounters.add(userId, notification.getRecipientType(), -1);
         }
     }
 
     public void markAllAsRead(String userId, UserRoleEnum userRole) {
-        List<Notification> unreadNotifications = notificationRepository
-                .findByRecipientIdAndRecipientTypeAndIsReadFalse(userId, userRole);
-
-        unreadNotifications.forEach(notification -> {
-            notification.setIsRead(true);
-            notification.setReadAt(LocalDateTime.now());
-        });
-
-        notificationRepository.saveAll(unreadNotifications);
+        UpdateResult result = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("recipient_id").is(userId)
+                        .and("recipient_type").is(userRole)
+                        .and("is_read").is(false)),
+                new Update().set("is_read", true).set("read_at", LocalDateTime.now()),
+                Notification.class);
+        dedupWindow.releaseRecipient(userId);
+        unreadCounters.add(userId, userRole, -result.getModifiedCount());
     }
 
     public long getUnreadCount(String userId, UserRoleEnum userRole) {
-        return notificationRepository.countByRecipientIdAndRecipientTypeAndIsReadFalse(userId, userRole);
+        return unreadCounters.get(userId, userRole);
     }
 
+    /**
+     * Counts for the stats endpoint. {@code unread} comes from {@link UnreadCounters}; the others
+     * are count queries on recipient, type and created_at (or priority), so each is answered from
+     * an index without loading the notifications.
+     */
     public NotificationStatsDTO getNotificationStats(String userId, UserRoleEnum userRole) {
-        List<Notification> allNotifications = notificationRepository
-                .findByRecipientIdAndRecipientTypeOrderByCreatedAtDesc(userId, userRole);
-
-        long total = allNotifications.size();
-        long unread = allNotifications.stream().mapToLong(n -> n.getIsRead() ? 0 : 1).sum();
-        long highPriority = allNotifications.stream()
-                .mapToLong(n -> n.getPriority() == Priority.HIGH || n.getPriority() == Priority.URGENT ? 1 : 0).sum();
-
         LocalDateTime todayStart = LocalDate.now().atStartOfDay();
         LocalDateTime weekStart = LocalDate.now().minusDays(7).atStartOfDay();
 
-        long today = allNotifications.stream()
-                .mapToLong(n -> n.getCreatedAt().isAfter(todayStart) ? 1 : 0).sum();
-        long week = allNotifications.stream()
-                .mapToLong(n -> n.getCreatedAt().isAfter(weekStart) ? 1 : 0).sum();
-
         return NotificationStatsDTO.builder()
-                .totalNotifications(total)
-                .unreadNotifications(unread)
-                .highPriorityNotifications(highPriority)
-                .todayNotifications(today)
-                .weekNotifications(week)
+                .totalNotifications(countForRecipient(userId, userRole, null))
+                .unreadNotifications(unreadCounters.get(userId, userRole))
+                .highPriorityNotifications(countForRecipient(userId, userRole,
+                        Criteria.where("priority").in(Priority.HIGH, Priority.URGENT)))
+                .todayNotifications(countForRecipient(userId, userRole, Criteria.where("created_at").gt(todayStart)))
+                .weekNotifications(countForRecipient(userId, userRole, Criteria.where("created_at").gt(weekStart)))
                 .build();
     }
 
+    private long countForRecipient(String userId, UserRoleEnum userRole, Criteria filter) {
+        Criteria criteria = Criteria.where("recipient_id").is(userId).and("recipient_type").is(userRole);
+        Query query = Query.query(filter != null ? new Criteria().andOperator(criteria, filter) : criteria);
+        return mongoTemplate.count(query, Notification.class);
+    }
+
     public void deleteNotifications(List<String> notificationIds, String userId) {
         List<Notification> notifications = notificationRepository.findAllById(notificationIds);
 
@@ -288,7 +371,15 @@ public class NotificationService {
             }
         });
 
-        notificationRepository.deleteAll(notifications);
+        notifications.stream()
+                .collect(Collectors.groupingBy(Notification::getRecipientType,
+                        Collectors.mapping(Notification::getId, Collectors.toList())))
+                .forEach((recipientType, ids) ->
+                        unreadCounters.add(userId, recipientType, -deleteUnread(ids)));
+        // What is left was read already, and markAsRead has counted it
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids(notifications))), Notification.class);
+        notifications.forEach(notification ->
+                dedupWindow.release(notification.getBinId(), notification.getNotificationType(), userId));
     }
 
     @Scheduled(cron = "0 0 2 * * ?")
@@ -297,7 +388,28 @@ public class NotificationService {
                 .findByExpiresAtBeforeAndIsReadFalse(LocalDateTime.now());
 
         log.info("Cleaning up {} expired notifications", expiredNotifications.size());
-        notificationRepository.deleteAll(expiredNotifications);
+        expiredNotifications.stream()
+                .filter(notification -> notification.getRecipientId() != null)
+                .collect(Collectors.groupingBy(
+                        notification -> Map.entry(notification.getRecipientId(), notification.getRecipientType()),
+                        Collectors.mapping(Notification::getId, Collectors.toList())))
+                .forEach((recipient, ids) ->
+                        unreadCounters.add(recipient.getKey(), recipient.getValue(), -deleteUnread(ids)));
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids(expiredNotifications))), Notification.class);
+    }
+
+    /**
+     * Deletes those of the notifications that are still unread and returns how many that were.
+     * A notification read since it was loaded has already been decremented by markAsRead, so only
+     * the delete itself can tell how many unread ones went away.
+     */
+    private long deleteUnread(List<String> ids) {
+        return mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids).and("is_read").is(false)),
+                Notification.class).getDeletedCount();
+    }
+
+    private static List<String> ids(List<Notification> notifications) {
+        return notifications.stream().map(Notification::getId).toList();
     }
 
     private Notification createNotification(NotificationType type, String title, String message,
@@ -317,7 +429,8 @@ public class NotificationService {
                 .build();
     }
 
-    private NotificationDTO convertToDTO(Notification notification) {
+    // Package-private for NotificationServiceBenchmark
+    NotificationDTO convertToDTO(Notification notification) {
         return NotificationDTO.builder()
                 .id(notification.getId())
                 .type(notification.getNotificationType().name())
@@ -334,11 +447,80 @@ public class NotificationService {
                 .build();
     }
 
+    // The same ids on every attempt of an outbox entry, so a retry cannot insert its notifications twice
+    private static void assignOutboxIds(List<Notification> notifications, String outboxEntryId) {
+        notifications.forEach(notification -> notification.setId(
+                outboxEntryId + ":" + notification.getRecipientType() + ":" + notification.getRecipientId()));
+    }
+
+    /**
+     * One bulk insert for all the notifications and the matching unread counter increments, then
+     * a push to each recipient followed by their new unread count. Notifications whose id already
+     * exists were created by an earlier attempt of the same outbox entry and are skipped entirely.
+     * Pushes are best effort: a recipient who misses one still gets the notification from the
+     * REST listing, so a failed push does not fail the outbox entry.
+     */
+    private void saveAndPush(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        List<Notification> inserted = insertNew(notifications);
+        // Counted right away rather than in the push, which may never run (crash)
+        List<UnreadCounters.Change> changes = incrementUnreadCounters(inserted, 1);
+
+        inserted.forEach(notification ->
+                sendRealTimeNotification(notification.getRecipientId(), convertToDTO(notification)));
+        changes.forEach(unreadCounters::publish);
+    }
+
+    // Returns the notifications that were actually inserted
+    private List<Notification> insertNew(List<Notification> notifications) {
+        notifications.stream()
+                .filter(notification -> notification.getId() == null)
+                .forEach(notification -> notification.setId(new ObjectId().toHexString()));
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class)
+                    .insert(notifications)
+                    .execute();
+            return notifications;
+        } catch (BulkOperationException e) {
+            Set<Integer> duplicates = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                duplicates.add(error.getIndex());
+            }
+            log.info("Skipped {} notifications already created by an earlier attempt", duplicates.size());
+            return IntStream.range(0, notifications.size())
+                    .filter(i -> !duplicates.contains(i))
+                    .mapToObj(notifications::get)
+                    .toList();
+        }
+    }
+
+    // One counter update per recipient for the unread notifications among these
+    private List<UnreadCounters.Change> incrementUnreadCounters(List<Notification> notifications, int sign) {
+        List<UnreadCounters.Change> changes = new ArrayList<>();
+        notifications.stream()
+                .filter(notification -> !notification.getIsRead() && notification.getRecipientId() != null)
+                .collect(Collectors.groupingBy(
+                        notification -> Map.entry(notification.getRecipientId(), notification.getRecipientType()),
+                        Collectors.counting()))
+                .forEach((recipient, count) ->
+                        changes.add(unreadCounters.increment(recipient.getKey(), recipient.getValue(), sign * count)));
+        return changes;
+    }
+
     private void sendRealTimeNotification(String userId, NotificationDTO notification) {
+        long start = System.nanoTime();
+        String outcome = IngestMetrics.ERROR;
         try {
-            webSocketHandler.sendNotificationToUser(userId, notification);
+            outcome = webSocketHandler.sendNotificationToUser(userId, notification) ? IngestMetrics.OK : "no_session";
         } catch (Exception e) {
             log.error("Failed to send real-time notification to user {}: {}", userId, e.getMessage());
+        } finally {
+            ingestMetrics.record(IngestStage.PUSH, IngestMetrics.TOPIC_NOTIFICATION, outcome, start);
         }
     }
 }
\ No newline at end of file
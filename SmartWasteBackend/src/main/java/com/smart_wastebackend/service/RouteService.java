@@ -1,16 +1,17 @@
 package com.smart_wastebackend.service;
 
 import com.smart_wastebackend.dto.*;
+import com.smart_wastebackend.enums.BinChange;
 import com.smart_wastebackend.enums.RouteStatusEnum;
 import com.smart_wastebackend.exception.BinNotFoundException;
 import com.smart_wastebackend.exception.UserNotFoundException;
-import com.smart_wastebackend.model.BinInventory;
 import com.smart_wastebackend.model.CollectorProfile;
+import com.smart_wastebackend.model.NotificationOutboxEntry;
 import com.smart_wastebackend.model.Route;
 import com.smart_wastebackend.model.embedded.RouteStop;
-import com.smart_wastebackend.repository.BinInventoryRepository;
 import com.smart_wastebackend.repository.CollectorProfileRepository;
 import com.smart_wastebackend.repository.RouteRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -19,31 +20,42 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate; // ✅ Added for Calendar logic
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 @Transactional
 public class RouteService {
 
     private final RouteRepository routeRepository;
-    private final BinInventoryRepository binInventoryRepository;
     private final CollectorProfileRepository collectorProfileRepository;
-    private final NotificationService notificationService; // ✅ Inject NotificationService
+    private final NotificationOutbox notificationOutbox;
+    private final BinWriteBehindBuffer binWriteBehindBuffer;
+    private final BinStateStore binStateStore;
+    private final BinFillForecaster binFillForecaster;
+    private final BinChangeRelay binChangeRelay;
 
     @Autowired
     public RouteService(
             RouteRepository routeRepository,
-            BinInventoryRepository binInventoryRepository,
             CollectorProfileRepository collectorProfileRepository,
-            NotificationService notificationService // ✅ Add to Constructor
+            NotificationOutbox notificationOutbox,
+            BinWriteBehindBuffer binWriteBehindBuffer,
+            BinStateStore binStateStore,
+            BinFillForecaster binFillForecaster,
+            BinChangeRelay binChangeRelay
     ) {
         this.routeRepository = routeRepository;
-        this.binInventoryRepository = binInventoryRepository;
         this.collectorProfileRepository = collectorProfileRepository;
-        this.notificationService = notificationService;
+        this.notificationOutbox = notificationOutbox;
+        this.binWriteBehindBuffer = binWriteBehindBuffer;
+        this.binStateStore = binStateStore;
+        this.binFillForecaster = binFillForecaster;
+        this.binChangeRelay = binChangeRelay;
     }
 
     public ApiResponse<List<Route>> getAllRoutes() {
@@ -111,17 +123,18 @@ public class RouteService {
                 .build();
     }
 
-    private List<RouteStop> buildRouteStops(List<String> binIds) {
+    // Package-private for RouteServiceBenchmark
+    List<RouteStop> buildRouteStops(List<String> binIds) {
         AtomicLong stopOrder = new AtomicLong(1);
         return binIds.stream()
                 .map(binId -> {
-                    BinInventory bin = binInventoryRepository.findById(binId)
+                    BinState bin = binStateStore.get(binId)
                             .orElseThrow(() -> new BinNotFoundException("Bin not found with ID: " + binId));
 
                     RouteStop stop = new RouteStop();
-                    stop.setBinId(bin.getBinId());
-                    stop.setLatitude(bin.getLatitude());
-                    stop.setLongitude(bin.getLongitude());
+                    stop.setBinId(bin.binId());
+                    stop.setLatitude(bin.latitudeOrNull());
+                    stop.setLongitude(bin.longitudeOrNull());
                     stop.setStopOrder(stopOrder.getAndIncrement());
                     return stop;
                 })
@@ -147,22 +160,22 @@ public class RouteService {
         // --- CALENDAR AUTOMATION ---
         List<RouteStop> stops = route.getStops();
         if (stops != null) {
+            List<NotificationOutboxEntry> notifications = new ArrayList<>(stops.size());
             for (RouteStop stop : stops) {
-                try {
-                    BinInventory bin = binInventoryRepository.findById(stop.getBinId()).orElse(null);
-
-                    // Only notify if bin exists and has an owner
-                    if (bin != null && bin.getOwnerId() != null) {
-                        notificationService.createCollectionDateNotification(
-                                bin.getBinId(),
-                                bin.getOwnerId(),
+                // Only notify if bin exists and has an owner
+                binStateStore.get(stop.getBinId())
+                        .map(BinState::ownerId)
+                        .ifPresent(ownerId -> notifications.add(NotificationOutbox.collectionDate(
+                                stop.getBinId(),
+                                ownerId,
                                 LocalDate.now().plusDays(1) // Schedule for Tomorrow
-                        );
-                    }
-                } catch (Exception e) {
-                    // Log error but don't fail the assignment transaction
-                    System.err.println("Failed to notify bin owner for bin: " + stop.getBinId());
-                }
+                        )));
+            }
+            try {
+                notificationOutbox.enqueueAll(notifications);
+            } catch (RuntimeException e) {
+                // Log error but don't fail the assignment transaction
+                log.error("Failed to queue collection notifications for route {}: {}", routeId, e.getMessage());
             }
         }
         // -----------------------------
@@ -198,7 +211,7 @@ public class RouteService {
         List<BinStopDTO> binStops = route.getStops()
                 .stream()
                 .map(stop -> {
-                    BinInventory bin = binInventoryRepository.findById(stop.getBinId())
+                    BinState bin = binStateStore.get(stop.getBinId())
                             .orElse(null);
 
                     if (bin == null) {
@@ -207,13 +220,13 @@ public class RouteService {
 
                     return new BinStopDTO(
                             stop.getStopOrder(),
-                            bin.getBinId(),
+                            bin.binId(),
                             stop.getLatitude(),
                             stop.getLongitude(),
-                            bin.getPaperLevel(),
-                            bin.getPlasticLevel(),
-                            bin.getGlassLevel(),
-                            bin.getLastEmptiedAt()
+                            bin.paper(),
+                            bin.plastic(),
+                            bin.glass(),
+                            bin.lastEmptiedAt()
                     );
                 })
                 .filter(java.util.Objects::nonNull)
@@ -277,15 +290,12 @@ public class RouteService {
             return new ApiResponse<>(false, "Bin is not part of this route", null, LocalDateTime.now().toString());
         }
 
-        var binInventory = binInventoryRepository.findById(request.getBinId())
-                .orElseThrow(() -> new RuntimeException("Bin status not found"));
-
-        binInventory.setPaperLevel(0L);
-        binInventory.setPlasticLevel(0L);
-        binInventory.setGlassLevel(0L);
-        binInventory.setLastEmptiedAt(LocalDateTime.now());
-
-        binInventoryRepository.save(binInventory);
+        // One conditional write instead of read-modify-save, so a concurrent reading cannot undo it
+        if (!binWriteBehindBuffer.markEmptied(request.getBinId(), LocalDateTime.now())) {
+            throw new RuntimeException("Bin status not found");
+        }
+        binFillForecaster.markEmptied(request.getBinId(), System.currentTimeMillis());
+        binChangeRelay.changed(request.getBinId(), BinChange.UPDATED);
 
         return new ApiResponse<>(true, "Bin marked as collected", null, LocalDateTime.now().toString());
     }
@@ -0,0 +1,153 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.dto.UnreadCountDTO;
+import com.smart_wastebackend.enums.UserRoleEnum;
+import com.smart_wastebackend.model.Notification;
+import com.smart_wastebackend.model.NotificationCounter;
+import com.smart_wastebackend.websocket.NotificationWebSocketHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unread notification count per recipient, served from memory and kept in
+ * {@code notification_counters} so every node sees the same value.
+ * <p>
+ * Every change is a single {@code $inc} that returns the new value, which replaces the cached one
+ * and is pushed to the recipient as an {@link UnreadCountDTO} delta frame. Callers only count
+ * changes they actually made (e.g. the number of notifications an update really flipped to read).
+ * <p>
+ * The deltas can still drift from the notifications: a crash between a write and its
+ * {@code $inc}, or a change that lands while a counter is being reset. So a cached value older
+ * than {@code notifications.unread.max-age-ms} is not just re-read but reset from a count of the
+ * recipient's unread notifications, as is a counter that an {@code $inc} took below zero. Drift
+ * therefore lasts at most one max-age and is counted in
+ * {@code smartwaste.notification.unread.corrected}.
+ */
+@Component
+@Slf4j
+public class UnreadCounters {
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationWebSocketHandler webSocketHandler;
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+    private final Counter corrected;
+    private final long maxAgeMs;
+
+    @Autowired
+    public UnreadCounters(MongoTemplate mongoTemplate, NotificationWebSocketHandler webSocketHandler,
+                          MeterRegistry meterRegistry,
+                          @Value("${notifications.unread.max-age-ms:30000}") long maxAgeMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.webSocketHandler = webSocketHandler;
+        this.maxAgeMs = maxAgeMs;
+        this.corrected = Counter.builder("smartwaste.notification.unread.corrected")
+                .description("Unread counters that differed from a count of the notifications and were reset")
+                .register(meterRegistry);
+    }
+
+    public long get(String recipientId, UserRoleEnum recipientType) {
+        String id = id(recipientId, recipientType);
+        Cached cached = cache.get(id);
+        if (cached != null && System.nanoTime() - cached.loadedAt < TimeUnit.MILLISECONDS.toNanos(maxAgeMs)) {
+            return cached.unread;
+        }
+        return reseed(id, recipientId, recipientType);
+    }
+
+    /** Apply a change of {@code delta} unread notifications and push it to the recipient. */
+    public void add(String recipientId, UserRoleEnum recipientType, long delta) {
+        publish(increment(recipientId, recipientType, delta));
+    }
+
+    /**
+     * The {@code $inc} half of {@link #add}, for callers that must defer the push (e.g. until a
+     * transaction commits); hand the result to {@link #publish}.
+     */
+    public Change increment(String recipientId, UserRoleEnum recipientType, long delta) {
+        if (delta == 0) {
+            return new Change(recipientId, recipientType, 0, null);
+        }
+        // No upsert: a missing counter is seeded from the notifications themselves, which already include this change
+        NotificationCounter counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id(recipientId, recipientType))),
+                new Update().inc("unread", delta),
+                FindAndModifyOptions.options().returnNew(true),
+                NotificationCounter.class);
+        return new Change(recipientId, recipientType, delta, counter != null ? counter.getUnread() : null);
+    }
+
+    /** Cache the new count of an {@link #increment} and push it to the recipient. */
+    public void publish(Change change) {
+        if (change.delta() == 0) {
+            return;
+        }
+        String id = id(change.recipientId(), change.recipientType());
+        long unread;
+        if (change.unread() == null) {
+            unread = get(change.recipientId(), change.recipientType());
+        } else if (change.unread() < 0) {
+            log.warn("Unread counter {} went to {}, resetting it from the notifications", id, change.unread());
+            unread = reseed(id, change.recipientId(), change.recipientType());
+        } else {
+            unread = remember(id, change.unread());
+        }
+        push(change.recipientId(), unread, change.delta());
+    }
+
+    // Count the unread notifications and make that the counter, creating it if needed
+    private long reseed(String id, String recipientId, UserRoleEnum recipientType) {
+        long unread = mongoTemplate.count(Query.query(Criteria.where("recipientId").is(recipientId)
+                .and("recipientType").is(recipientType)
+                .and("isRead").is(false)), Notification.class);
+        NotificationCounter previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id)),
+                new Update()
+                        .set("unread", unread)
+                        .setOnInsert("recipient_id", recipientId)
+                        .setOnInsert("recipient_type", recipientType),
+                FindAndModifyOptions.options().upsert(true).returnNew(false),
+                NotificationCounter.class);
+        if (previous != null && previous.getUnread() != null && previous.getUnread() != unread) {
+            corrected.increment();
+            log.debug("Unread counter {} was {}, counted {}", id, previous.getUnread(), unread);
+        }
+        return remember(id, unread);
+    }
+
+    private long remember(String id, long unread) {
+        cache.put(id, new Cached(unread, System.nanoTime()));
+        return unread;
+    }
+
+    private void push(String recipientId, long unread, long delta) {
+        try {
+            webSocketHandler.sendToUser(recipientId, new UnreadCountDTO(unread, delta));
+        } catch (Exception e) {
+            log.error("Failed to push unread count to user {}: {}", recipientId, e.getMessage());
+        }
+    }
+
+    private static String id(String recipientId, UserRoleEnum recipientType) {
+        return recipientId + ":" + recipientType;
+    }
+
+    /** Result of an {@link #increment}; {@code unread} is {@code null} if the recipient had no counter yet. */
+    public record Change(String recipientId, UserRoleEnum recipientType, long delta, Long unread) {
+    }
+
+    private record Cached(long unread, long loadedAt) {
+    }
+}
@@ -1,5 +1,8 @@
 package com.smart_wastebackend.websocket;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 
@@ -8,7 +11,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Component
-public class BinStatusWebSocketHandler implements WebSocketHandler {
+public class BinStatusWebSocketHandler implements WebSocketHandler, MeterBinder {
 
     private static final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
 
@@ -45,18 +48,28 @@ public class BinStatusWebSocketHandler implements WebSocketHandler {
         return false;
     }
 
-    // Public method to send bin status message to a user
-    public void sendStatusToUser(String username, String message) {
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("smartwaste.websocket.sessions", sessions, Map::size)
+                .description("Open WebSocket sessions")
+                .tag("endpoint", "bin-status")
+                .register(registry);
+    }
+
+    // Public method to send bin status message to a user; returns true if it was sent
+    public boolean sendStatusToUser(String username, String message) {
         WebSocketSession session = sessions.get(username);
         if (session != null && session.isOpen()) {
             try {
                 session.sendMessage(new TextMessage(message));
                 System.out.println("Sent to " + username + ": " + message);
+                return true;
             } catch (IOException e) {
                 System.out.println("Failed to send message to " + username + ": " + e.getMessage());
             }
         } else {
             System.out.println("No open WebSocket session for user: " + username);
         }
+        return false;
     }
 }
@@ -2,6 +2,9 @@ package com.smart_wastebackend.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smart_wastebackend.dto.NotificationDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -14,7 +17,7 @@ import java.util.concurrent.ConcurrentHashMap;
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class NotificationWebSocketHandler implements WebSocketHandler {
+public class NotificationWebSocketHandler implements WebSocketHandler, MeterBinder {
 
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -53,18 +56,37 @@ public class NotificationWebSocketHandler implements WebSocketHandler {
         return false;
     }
 
-    public void sendNotificationToUser(String userId, NotificationDTO notification) {
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("smartwaste.websocket.sessions", sessions, Map::size)
+                .description("Open WebSocket sessions")
+                .tag("endpoint", "notifications")
+                .register(registry);
+    }
+
+    /** Push a notification to the user's open session; returns true if it was sent. */
+    public boolean sendNotificationToUser(String userId, NotificationDTO notification) {
+        boolean sent = sendToUser(userId, notification);
+        if (sent) {
+            log.debug("Sent notification to user {}: {}", userId, notification.getTitle());
+        }
+        return sent;
+    }
+
+    /** Push any JSON frame (notification, unread count) to the user's open session. */
+    public boolean sendToUser(String userId, Object frame) {
         WebSocketSession session = sessions.get(userId);
         if (session != null && session.isOpen()) {
             try {
-                String message = objectMapper.writeValueAsString(notification);
+                String message = objectMapper.writeValueAsString(frame);
                 session.sendMessage(new TextMessage(message));
-                log.debug("Sent notification to user {}: {}", userId, notification.getTitle());
+                return true;
             } catch (IOException e) {
-                log.error("Failed to send notification to user {}: {}", userId, e.getMessage());
+                log.error("Failed to send to user {}: {}", userId, e.getMessage());
                 sessions.remove(userId); // Remove invalid session
             }
         }
+        return false;
     }
 
     private String getUserIdFromSession(WebSocketSession session) {
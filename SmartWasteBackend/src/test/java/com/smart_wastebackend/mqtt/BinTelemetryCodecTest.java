@@ -0,0 +1,83 @@
+package com.smart_wastebackend.mqtt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smart_wastebackend.dto.BinStatusDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinTelemetryCodecTest {
+
+    private final BinTelemetryCodec codec = new BinTelemetryCodec(new ObjectMapper());
+
+    @Test
+    void statusWithSeqAndTimestampRoundTrips() throws IOException {
+        BinStatusDTO decoded = roundTrip(status(42L, 1_700_000_000_000L));
+
+        assertEquals(42L, decoded.getSeq());
+        assertEquals(1_700_000_000_000L, decoded.getTimestamp());
+        assertEquals(55L, decoded.getPlasticLevel());
+        assertNull(decoded.getGlassLevel());
+    }
+
+    @Test
+    void seqOnlyStatusDecodesWithoutTimestamp() throws IOException {
+        BinStatusDTO decoded = roundTrip(status(7L, null));
+
+        assertEquals(7L, decoded.getSeq());
+        assertNull(decoded.getTimestamp());
+    }
+
+    @Test
+    void timestampOnlyStatusDecodesWithoutSeq() throws IOException {
+        BinStatusDTO decoded = roundTrip(status(null, 1_700_000_000_000L));
+
+        assertNull(decoded.getSeq());
+        assertEquals(1_700_000_000_000L, decoded.getTimestamp());
+    }
+
+    @Test
+    void zeroSeqIsKept() throws IOException {
+        assertEquals(0L, roundTrip(status(0L, null)).getSeq());
+    }
+
+    @Test
+    void negativeJsonLevelIsRejected() {
+        byte[] payload = "{\"plasticLevel\": -1}".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decodeStatus(payload));
+    }
+
+    @Test
+    void binaryLevelAboveOneHundredIsRejected() {
+        byte[] payload = {BinTelemetryCodec.MAGIC, BinTelemetryCodec.VERSION_1, BinTelemetryCodec.TYPE_STATUS, 101, 0, 0};
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decodeStatus(payload));
+    }
+
+    @Test
+    void missingJsonLevelStaysNull() throws IOException {
+        BinStatusDTO decoded = codec.decodeStatus("{\"plasticLevel\": 100}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(100L, decoded.getPlasticLevel());
+        assertNull(decoded.getPaperLevel());
+    }
+
+    private BinStatusDTO roundTrip(BinStatusDTO status) throws IOException {
+        return codec.decodeStatus(BinTelemetryCodec.encodeStatus(status));
+    }
+
+    private static BinStatusDTO status(Long seq, Long timestamp) {
+        BinStatusDTO status = new BinStatusDTO();
+        status.setPlasticLevel(55L);
+        status.setPaperLevel(10L);
+        status.setSeq(seq);
+        status.setTimestamp(timestamp);
+        return status;
+    }
+}
@@ -0,0 +1,91 @@
+package com.smart_wastebackend.mqtt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestNodeTest {
+
+    @Test
+    void ownsEveryPartitionByDefault() {
+        IngestNode node = node(4, "");
+
+        assertEquals(List.of("0", "1", "2", "3"), node.ownedPartitions());
+        assertTrue(node.ownsAll());
+        assertTrue(node.owns("BIN-1"));
+    }
+
+    @Test
+    void parsesRangesAndSingles() {
+        IngestNode node = node(8, "0-2, 5");
+
+        assertEquals(List.of("0", "1", "2", "5"), node.ownedPartitions());
+        assertFalse(node.ownsAll());
+    }
+
+    @Test
+    void rejectsPartitionsOutsideTheCount() {
+        assertThrows(IllegalArgumentException.class, () -> node(4, "2-4"));
+        assertThrows(IllegalArgumentException.class, () -> node(4, "x"));
+        assertThrows(IllegalArgumentException.class, () -> node(0, ""));
+    }
+
+    @Test
+    void complementaryNodesOwnEveryBinExactlyOnce() {
+        IngestNode first = node(8, "0-3");
+        IngestNode second = node(8, "4-7");
+
+        for (int i = 0; i < 1000; i++) {
+            String binId = "BIN-" + i;
+            assertTrue(first.owns(binId) ^ second.owns(binId), binId);
+            assertEquals(first.partitionOf(binId), IngestNode.partitionOf(binId, 8));
+        }
+    }
+
+    @Test
+    void binsSpreadEvenlyOverPartitions() {
+        int[] counts = new int[8];
+        for (int i = 0; i < 10_000; i++) {
+            counts[IngestNode.partitionOf(String.format("SIM-%05d", i), counts.length)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 1250) < 125, "partition holds " + count + " of 10000 bins");
+        }
+    }
+
+    @Test
+    void binsOfOnePartitionStillUseEveryLane() {
+        Set<Integer> lanes = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            String binId = String.format("SIM-%05d", i);
+            if (IngestNode.partitionOf(binId, 2) == 0) {
+                lanes.add(Math.floorMod(binId.hashCode(), 4));
+            }
+        }
+
+        assertEquals(Set.of(0, 1, 2, 3), lanes);
+    }
+
+    @Test
+    void countsMessagesOfOwnedBins() {
+        IngestNode node = node(1, "");
+
+        node.recordMessage("BIN-1");
+        node.recordMessage("BIN-2");
+
+        assertEquals(2, node.messages());
+    }
+
+    private static IngestNode node(int count, String owned) {
+        return new IngestNode(new SimpleMeterRegistry(), "test", count, owned);
+    }
+}
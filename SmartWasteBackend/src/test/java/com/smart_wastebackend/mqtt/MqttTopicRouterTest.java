@@ -0,0 +1,154 @@
+package com.smart_wastebackend.mqtt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MqttTopicRouterTest {
+
+    @Test
+    void capturesNamedLevels() {
+        MqttTopicRouter router = router("smartwaste/bin/{binId}/status");
+
+        MqttTopicMatch match = router.match("smartwaste/bin/BIN-7/status");
+
+        assertEquals("smartwaste/bin/{binId}/status", pattern(match));
+        assertEquals("BIN-7", match.variable("binId"));
+        assertNull(match.variable("other"));
+    }
+
+    @Test
+    void plusMatchesExactlyOneLevel() {
+        MqttTopicRouter router = router("a/+/c");
+
+        assertEquals("a/+/c", pattern(router.match("a/b/c")));
+        assertNull(router.match("a/c"));
+        assertNull(router.match("a/b/x/c"));
+        assertNull(router.match("a/b/c/d"));
+    }
+
+    @Test
+    void hashMatchesTheParentAndAnyDepthBelow() {
+        MqttTopicRouter router = router("a/#");
+
+        assertEquals("a/#", pattern(router.match("a")));
+        assertEquals("a/#", pattern(router.match("a/b")));
+        assertEquals("a/#", pattern(router.match("a/b/c/d")));
+        assertNull(router.match("b/a"));
+    }
+
+    @Test
+    void rootHashMatchesEverything() {
+        MqttTopicRouter router = router("#");
+
+        assertEquals("#", pattern(router.match("anything/at/all")));
+        assertEquals("#", pattern(router.match("")));
+    }
+
+    @Test
+    void literalWinsOverPlusWhichWinsOverHash() {
+        MqttTopicRouter router = router("bin/special/status", "bin/{binId}/status", "bin/#");
+
+        assertEquals("bin/special/status", pattern(router.match("bin/special/status")));
+        assertEquals("bin/{binId}/status", pattern(router.match("bin/BIN-1/status")));
+        assertEquals("bin/#", pattern(router.match("bin/BIN-1/location")));
+    }
+
+    @Test
+    void backtracksFromADeadLiteralBranchToTheWildcard() {
+        MqttTopicRouter router = router("a/b/c", "a/{x}/d");
+
+        MqttTopicMatch match = router.match("a/b/d");
+
+        assertEquals("a/{x}/d", pattern(match));
+        assertEquals("b", match.variable("x"));
+    }
+
+    @Test
+    void fallsBackToHashAfterDeeperBranchesFail() {
+        MqttTopicRouter router = router("a/+/c", "a/#");
+
+        assertEquals("a/+/c", pattern(router.match("a/b/c")));
+        assertEquals("a/#", pattern(router.match("a/b/x")));
+    }
+
+    @Test
+    void emptyLevelsAreLevelsToo() {
+        MqttTopicRouter router = router("a/{x}/c");
+
+        MqttTopicMatch match = router.match("a//c");
+
+        assertEquals("a/{x}/c", pattern(match));
+        assertEquals("", match.variable("x"));
+        assertNull(router.match("a///c"));
+    }
+
+    @Test
+    void trailingSlashIsAnEmptyLastLevel() {
+        MqttTopicRouter router = router("a/{x}", "b/c");
+
+        assertEquals("", router.match("a/").variable("x"));
+        assertNull(router.match("b/c/"));
+        assertNull(router.match("a"));
+    }
+
+    @Test
+    void literalPatternWithTrailingSlashOnlyMatchesThatTopic() {
+        MqttTopicRouter router = router("a/b/");
+
+        assertEquals("a/b/", pattern(router.match("a/b/")));
+        assertNull(router.match("a/b"));
+    }
+
+    @Test
+    void topicFiltersTurnNamedLevelsIntoPlus() {
+        MqttTopicRouter router = router("smartwaste/bin/{binId}/status", "smartwaste/fleet/#");
+
+        assertEquals(List.of("smartwaste/bin/+/status", "smartwaste/fleet/#"), Arrays.asList(router.topicFilters()));
+    }
+
+    @Test
+    void partitionLevelIsSubscribedOncePerValue() {
+        MqttTopicRouter router = router("smartwaste/bin/{partition}/{binId}/status", "smartwaste/internal/{binId}");
+
+        assertEquals(List.of("smartwaste/bin/1/+/status", "smartwaste/bin/3/+/status", "smartwaste/internal/+"),
+                Arrays.asList(router.topicFilters("partition", List.of("1", "3"))));
+        assertEquals("BIN-7", router.match("smartwaste/bin/1/BIN-7/status").variable("binId"));
+    }
+
+    @Test
+    void rejectsHashBeforeTheLastLevel() {
+        assertThrows(IllegalArgumentException.class, () -> router("a/#/b"));
+    }
+
+    @Test
+    void rejectsPatternsThatOverlapExactly() {
+        assertThrows(IllegalStateException.class, () -> router("a/{binId}/status", "a/+/status"));
+        assertThrows(IllegalStateException.class, () -> router("a/#", "a/#"));
+    }
+
+    private static MqttTopicRouter router(String... patterns) {
+        return new MqttTopicRouter(Arrays.stream(patterns).<MqttTopicHandler>map(PatternHandler::new).toList());
+    }
+
+    private static String pattern(MqttTopicMatch match) {
+        return match != null ? match.handler().topicPattern() : null;
+    }
+
+    private record PatternHandler(String topicPattern) implements MqttTopicHandler {
+
+        @Override
+        public String topicType() {
+            return "test";
+        }
+
+        @Override
+        public void handle(MqttTopicMatch match, byte[] payload) {
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.smart_wastebackend.mqtt;
+
+import com.smart_wastebackend.enums.IngestOverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionedIngestExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void interleavedBinsKeepTheirOrderAcrossLanes() throws Exception {
+        PartitionedIngestExecutor executor = executor(2, 1000, IngestOverflowPolicy.BLOCK);
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        List<String> bins = List.of("BIN-1", "BIN-2", "BIN-3", "BIN-4", "BIN-5");
+
+        for (int i = 0; i < 200; i++) {
+            for (String bin : bins) {
+                int n = i;
+                executor.execute(bin, () -> seen.computeIfAbsent(bin, key -> new ArrayList<>()).add(n));
+            }
+        }
+        awaitIdle(executor);
+
+        List<Integer> expected = IntStream.range(0, 200).boxed().toList();
+        for (String bin : bins) {
+            assertEquals(expected, seen.get(bin), bin);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void dropNewestDiscardsTheIncomingTask() throws Exception {
+        PartitionedIngestExecutor executor = fullLane(IngestOverflowPolicy.DROP_NEWEST);
+
+        executor.execute("BIN-1", task("b"));
+        release.countDown();
+        awaitIdle(executor);
+
+        assertEquals(List.of("a"), ran);
+        assertEquals(1.0, dropped("overflow"), 0);
+        executor.shutdown();
+    }
+
+    @Test
+    void dropOldestDiscardsTheQueuedTask() throws Exception {
+        PartitionedIngestExecutor executor = fullLane(IngestOverflowPolicy.DROP_OLDEST);
+
+        executor.execute("BIN-1", task("b"));
+        release.countDown();
+        awaitIdle(executor);
+
+        assertEquals(List.of("b"), ran);
+        assertEquals(1.0, dropped("overflow"), 0);
+        executor.shutdown();
+    }
+
+    @Test
+    void dropOldestPerBinReplacesTheQueuedTaskOfTheSameKey() throws Exception {
+        PartitionedIngestExecutor executor = fullLane(IngestOverflowPolicy.DROP_OLDEST_PER_BIN);
+
+        executor.execute("BIN-1", "bins/BIN-1/status", task("b"));
+        release.countDown();
+        awaitIdle(executor);
+
+        assertEquals(List.of("b"), ran);
+        assertEquals(1.0, dropped("superseded"), 0);
+        assertEquals(0.0, dropped("overflow"), 0);
+        executor.shutdown();
+    }
+
+    @Test
+    void dropOldestPerBinBlocksWhenTheLaneIsFullOfOtherKeys() throws Exception {
+        PartitionedIngestExecutor executor = fullLane(IngestOverflowPolicy.DROP_OLDEST_PER_BIN);
+
+        Thread producer = submitInBackground(() -> executor.execute("BIN-1", "bins/BIN-2/status", task("c")));
+        assertTrue(producer.isAlive(), "a distinct key must wait for room");
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        awaitIdle(executor);
+
+        assertEquals(List.of("a", "c"), ran);
+        assertEquals(0.0, dropped("overflow"), 0);
+        executor.shutdown();
+    }
+
+    @Test
+    void blockWaitsForRoomAndKeepsEveryTask() throws Exception {
+        PartitionedIngestExecutor executor = fullLane(IngestOverflowPolicy.BLOCK);
+
+        Thread producer = submitInBackground(() -> executor.execute("BIN-1", task("b")));
+        assertTrue(producer.isAlive(), "the producer must block while the lane is full");
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        awaitIdle(executor);
+
+        assertFalse(producer.isAlive());
+        assertEquals(List.of("a", "b"), ran);
+        executor.shutdown();
+    }
+
+    // One lane with room for one task: a blocked task is running and task "a" is queued
+    private PartitionedIngestExecutor fullLane(IngestOverflowPolicy policy) throws InterruptedException {
+        PartitionedIngestExecutor executor = executor(1, 1, policy);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute("BIN-1", () -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute("BIN-1", "bins/BIN-1/status", task("a"));
+        return executor;
+    }
+
+    private PartitionedIngestExecutor executor(int lanes, int capacity, IngestOverflowPolicy policy) {
+        return new PartitionedIngestExecutor(meterRegistry, lanes, capacity, policy);
+    }
+
+    private Runnable task(String name) {
+        return () -> ran.add(name);
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("smartwaste.ingest.lane.dropped").tag("reason", reason).counter().count();
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Thread submitInBackground(Runnable submit) throws InterruptedException {
+        Thread thread = new Thread(submit);
+        thread.start();
+        thread.join(200);
+        return thread;
+    }
+
+    private static void awaitIdle(PartitionedIngestExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.pendingTasks() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.pendingTasks());
+    }
+}
@@ -0,0 +1,80 @@
+package com.smart_wastebackend.mqtt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.smart_wastebackend.mqtt.TelemetryDeduplicator.Verdict.ACCEPTED;
+import static com.smart_wastebackend.mqtt.TelemetryDeduplicator.Verdict.DUPLICATE;
+import static com.smart_wastebackend.mqtt.TelemetryDeduplicator.Verdict.STALE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TelemetryDeduplicatorTest {
+
+    private final TelemetryDeduplicator deduplicator =
+            new TelemetryDeduplicator(new SimpleMeterRegistry(), 600_000, 100, 1000);
+
+    @Test
+    void readingThatWasNotAppliedIsAcceptedAgainOnRedelivery() {
+        assertEquals(ACCEPTED, deduplicator.check("BIN-1", 5L, 1000L, payload("a")));
+        // the reading failed before accept(), so the broker's redelivery must go through
+        assertEquals(ACCEPTED, deduplicator.check("BIN-1", 5L, 1000L, payload("a")));
+    }
+
+    @Test
+    void sameSequenceIsADuplicateOnceApplied() {
+        apply("BIN-1", 5L, 1000L, "a");
+
+        assertEquals(DUPLICATE, deduplicator.check("BIN-1", 5L, 1000L, payload("a")));
+        assertEquals(STALE, deduplicator.check("BIN-1", 4L, 999L, payload("b")));
+        assertEquals(ACCEPTED, deduplicator.check("BIN-1", 6L, 1001L, payload("c")));
+    }
+
+    @Test
+    void lowerSequenceWithANewerTimestampIsARestart() {
+        apply("BIN-1", 500L, 1000L, "a");
+
+        assertEquals(ACCEPTED, deduplicator.check("BIN-1", 0L, 2000L, payload("b")));
+    }
+
+    @Test
+    void lowerSequenceBeyondTheRestartGapIsARestart() {
+        apply("BIN-1", 5000L, null, "a");
+
+        assertEquals(STALE, deduplicator.check("BIN-1", 4500L, null, payload("b")));
+        assertEquals(ACCEPTED, deduplicator.check("BIN-1", 3L, null, payload("c")));
+    }
+
+    @Test
+    void withoutSequenceOnlyOlderTimestampsAreStale() {
+        apply("BIN-1", null, 1000L, "a");
+
+        assertEquals(STALE, deduplicator.check("BIN-1", null, 999L, payload("a")));
+        assertEquals(ACCEPTED, deduplicator.check("BIN-1", null, 1001L, payload("a")));
+    }
+
+    @Test
+    void withoutSequenceSameTimestampIsADuplicateOnlyForTheSamePayload() {
+        apply("BIN-1", null, 1000L, "a");
+
+        assertEquals(DUPLICATE, deduplicator.check("BIN-1", null, 1000L, payload("a")));
+        assertEquals(ACCEPTED, deduplicator.check("BIN-1", null, 1000L, payload("b")));
+    }
+
+    @Test
+    void readingsWithoutSequenceOrTimestampAreAlwaysAccepted() {
+        apply("BIN-1", null, null, "a");
+
+        assertEquals(ACCEPTED, deduplicator.check("BIN-1", null, null, payload("a")));
+    }
+
+    private void apply(String binId, Long seq, Long timestamp, String body) {
+        assertEquals(ACCEPTED, deduplicator.check(binId, seq, timestamp, payload(body)));
+        deduplicator.accept(binId, seq, timestamp, payload(body));
+    }
+
+    private static byte[] payload(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,131 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.dto.BinForecastDTO;
+import com.smart_wastebackend.enums.WasteType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinFillForecasterTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    // A Thursday, and the Wednesday of the following week
+    private static final long THURSDAY_8AM = millis(LocalDateTime.of(2026, 10, 8, 8, 0));
+    private static final long WEDNESDAY_8PM = millis(LocalDateTime.of(2026, 10, 14, 20, 0));
+
+    private final BinFillForecaster forecaster =
+            new BinFillForecaster(90, 0.3, 0.1, Duration.ofMinutes(5).toMillis(), 30);
+
+    @Test
+    void firstReadingOnlySetsTheBaseline() {
+        plastic("BIN-1", 50, THURSDAY_8AM);
+
+        BinForecastDTO forecast = forecaster.getForecast("BIN-1").orElseThrow();
+        assertNull(forecast.getPlasticFillRate());
+        assertNull(forecast.getPlasticPredictedFullAt());
+    }
+
+    @Test
+    void rateIsAnExponentiallyWeightedAverageAdjustedForTheWeekday() {
+        plastic("BIN-1", 0, THURSDAY_8AM);
+        plastic("BIN-1", 10, THURSDAY_8AM + HOUR);
+        assertEquals(10d, forecast("BIN-1").getPlasticFillRate(), 1e-9);
+
+        // 20 points/h against 10: Thursday's factor moves to 0.9 * 1 + 0.1 * 2
+        plastic("BIN-1", 30, THURSDAY_8AM + 2 * HOUR);
+        assertEquals(0.7 * 10 + 0.3 * (20 / 1.1), forecast("BIN-1").getPlasticFillRate(), 1e-9);
+    }
+
+    @Test
+    void readingsCloserThanTheMinimumIntervalAreAccumulatedIntoTheNextOne() {
+        plastic("BIN-1", 10, THURSDAY_8AM);
+        plastic("BIN-1", 12, THURSDAY_8AM + Duration.ofMinutes(4).toMillis());
+        plastic("BIN-1", 20, THURSDAY_8AM + HOUR);
+
+        assertEquals(10d, forecast("BIN-1").getPlasticFillRate(), 1e-9);
+    }
+
+    @Test
+    void dropOfMoreThanTenPointsRestartsTheBaselineAndKeepsTheRate() {
+        plastic("BIN-1", 60, THURSDAY_8AM);
+        plastic("BIN-1", 70, THURSDAY_8AM + HOUR);
+        plastic("BIN-1", 55, THURSDAY_8AM + 2 * HOUR);
+
+        BinForecastDTO forecast = forecast("BIN-1");
+        assertEquals(10d, forecast.getPlasticFillRate(), 1e-9);
+        assertEquals(dateTime(THURSDAY_8AM + 2 * HOUR + (long) (3.5 * HOUR)), forecast.getPlasticPredictedFullAt());
+    }
+
+    @Test
+    void dropOfTenPointsOrLessIsNoise() {
+        plastic("BIN-1", 60, THURSDAY_8AM);
+        plastic("BIN-1", 70, THURSDAY_8AM + HOUR);
+        plastic("BIN-1", 60, THURSDAY_8AM + 2 * HOUR);
+
+        // Still projected from 70 at 09:00
+        assertEquals(dateTime(THURSDAY_8AM + 3 * HOUR), forecast("BIN-1").getPlasticPredictedFullAt());
+    }
+
+    @Test
+    void projectionWalksDayByDayAcrossMidnightWithEachWeekdaysFactor() {
+        plastic("BIN-1", 0, THURSDAY_8AM);
+        plastic("BIN-1", 10, THURSDAY_8AM + HOUR);
+        plastic("BIN-1", 30, THURSDAY_8AM + 2 * HOUR);
+        // Emptied the next Wednesday evening: four hours at the plain rate, the rest at Thursday's
+        plastic("BIN-1", 0, WEDNESDAY_8PM);
+
+        double rate = 0.7 * 10 + 0.3 * (20 / 1.1);
+        double leftAtMidnight = 90 - 4 * rate;
+        long thursdayMidnight = millis(LocalDateTime.of(2026, 10, 15, 0, 0));
+        LocalDateTime expected = dateTime(thursdayMidnight + (long) (leftAtMidnight / (rate * 1.1) * HOUR));
+
+        LocalDateTime predicted = forecast("BIN-1").getPlasticPredictedFullAt();
+        assertTrue(Duration.between(expected, predicted).abs().toMillis() <= 1, expected + " vs " + predicted);
+    }
+
+    @Test
+    void findFullWithinReturnsBinsDueBeforeTheDeadlineSoonestFirst() {
+        long now = System.currentTimeMillis();
+        // 10 points/h from 20: full in seven hours
+        plastic("SLOW", 10, now - 2 * HOUR);
+        plastic("SLOW", 20, now - HOUR);
+        // 1 point/h: full in three days
+        plastic("SLOWER", 10, now - 2 * HOUR);
+        plastic("SLOWER", 11, now - HOUR);
+        // Glass at 3 points/h from 88: full within the hour
+        forecaster.observe("GLASS", null, null, 85L, now - 2 * HOUR);
+        forecaster.observe("GLASS", null, null, 88L, now - HOUR);
+
+        assertEquals(List.of("GLASS", "SLOW"), binIds(forecaster.findFullWithin(Duration.ofHours(24), null)));
+        assertEquals(List.of("SLOW"), binIds(forecaster.findFullWithin(Duration.ofHours(24), WasteType.PLASTIC)));
+        assertEquals(List.of("GLASS"), binIds(forecaster.findFullWithin(Duration.ofHours(1), null)));
+    }
+
+    private void plastic(String binId, long level, long atMillis) {
+        forecaster.observe(binId, level, null, null, atMillis);
+    }
+
+    private BinForecastDTO forecast(String binId) {
+        return forecaster.getForecast(binId).orElseThrow();
+    }
+
+    private static List<String> binIds(List<BinForecastDTO> forecasts) {
+        return forecasts.stream().map(BinForecastDTO::getBinId).toList();
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime dateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,100 @@
+package com.smart_wastebackend.service;
+
+import com.mongodb.client.MongoClients;
+import com.smart_wastebackend.dto.BinHistoryPointDTO;
+import com.smart_wastebackend.model.BinRollup;
+import com.smart_wastebackend.model.embedded.LevelStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BinRollupServiceTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    private final StoredRollups mongo = new StoredRollups();
+    private final BinRollupService service = new BinRollupService(mongo, new SimpleMeterRegistry());
+
+    @Test
+    void dailyPointsStayOnLocalMidnightsAcrossADstChange() {
+        // Europe and North America change clocks in the nights of 29 March and 8 March
+        LocalDate first = LocalDate.of(2026, 3, 5);
+        for (int day = 0; day < 30; day++) {
+            mongo.rollups.add(rollup(first.plusDays(day).atStartOfDay(), 10));
+        }
+
+        List<BinHistoryPointDTO> points = service.downsample("BIN-1", first.atTime(15, 0), first.plusDays(30).atStartOfDay(), DAY);
+
+        assertEquals(30, points.size());
+        for (int day = 0; day < 30; day++) {
+            assertEquals(first.plusDays(day).atStartOfDay(), points.get(day).getTimestamp());
+        }
+        assertEquals("bin_rollup_daily", mongo.collection);
+    }
+
+    @Test
+    void multiDayPointsGroupWholeCalendarDays() {
+        LocalDate first = LocalDate.of(2026, 3, 27);
+        mongo.rollups.add(rollup(first.atStartOfDay(), 10));
+        mongo.rollups.add(rollup(first.plusDays(1).atStartOfDay(), 20));
+        mongo.rollups.add(rollup(first.plusDays(2).atStartOfDay(), 30));
+        mongo.rollups.add(rollup(first.plusDays(3).atStartOfDay(), 50));
+
+        List<BinHistoryPointDTO> points = service.downsample("BIN-1", first.atStartOfDay(), first.plusDays(4).atStartOfDay(), 2 * DAY);
+
+        assertEquals(2, points.size());
+        assertEquals(first.atStartOfDay(), points.get(0).getTimestamp());
+        assertEquals(15.0, points.get(0).getPlasticLevel(), 1e-9);
+        assertEquals(first.plusDays(2).atStartOfDay(), points.get(1).getTimestamp());
+        assertEquals(40.0, points.get(1).getPlasticLevel(), 1e-9);
+        assertEquals(4L, points.get(1).getSamples());
+    }
+
+    @Test
+    void hourlyPointsStartAtTheTruncatedFromHour() {
+        LocalDateTime midnight = LocalDate.of(2026, 10, 25).atStartOfDay();
+        for (int hour = 0; hour < 6; hour++) {
+            mongo.rollups.add(rollup(midnight.plusHours(hour), hour));
+        }
+
+        List<BinHistoryPointDTO> points = service.downsample("BIN-1", midnight.plusMinutes(20), midnight.plusHours(6), 3 * HOUR);
+
+        assertEquals(List.of(midnight, midnight.plusHours(3)), points.stream().map(BinHistoryPointDTO::getTimestamp).toList());
+        assertEquals(1.0, points.get(0).getPlasticLevel(), 1e-9);
+        assertEquals(4.0, points.get(1).getPlasticLevel(), 1e-9);
+        assertEquals("bin_rollup_hourly", mongo.collection);
+    }
+
+    private static BinRollup rollup(LocalDateTime bucket, long plastic) {
+        LevelStats stats = new LevelStats(plastic, plastic, plastic * 2, 2L, plastic, bucket);
+        return new BinRollup("BIN-1:" + bucket, "BIN-1", bucket, 2L, stats, null, null);
+    }
+
+    // Returns every stored rollup, in order, whatever the query; the client is never connected
+    private static final class StoredRollups extends MongoTemplate {
+
+        private final List<BinRollup> rollups = new ArrayList<>();
+        private String collection;
+
+        private StoredRollups() {
+            super(MongoClients.create("mongodb://localhost"), "test");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> find(Query query, Class<T> entityClass, String collectionName) {
+            collection = collectionName;
+            return (List<T>) new ArrayList<>(rollups);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.model.BinInventory;
+import com.smart_wastebackend.mqtt.IngestNode;
+import com.smart_wastebackend.repository.BinInventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinStateStoreTest {
+
+    private final Map<String, BinInventory> bins = new HashMap<>();
+    private int lookups;
+
+    @Test
+    void unknownBinIsLookedUpOnceWithinTheTtl() {
+        BinStateStore store = store(60_000);
+
+        assertTrue(store.get("BIN-X").isEmpty());
+        assertTrue(store.get("BIN-X").isEmpty());
+        assertFalse(store.update("BIN-X", state -> state));
+
+        assertEquals(1, lookups);
+    }
+
+    @Test
+    void unknownBinIsLookedUpAgainAfterTheTtl() throws InterruptedException {
+        BinStateStore store = store(10);
+        assertTrue(store.get("BIN-X").isEmpty());
+
+        Thread.sleep(30);
+        bins.put("BIN-X", bin("BIN-X"));
+
+        assertTrue(store.get("BIN-X").isPresent());
+        assertEquals(2, lookups);
+    }
+
+    @Test
+    void addingTheBinClearsItsMissingEntry() {
+        BinStateStore store = store(60_000);
+        assertTrue(store.get("BIN-X").isEmpty());
+
+        store.put(bin("BIN-X"));
+
+        assertEquals("BIN-X", store.get("BIN-X").orElseThrow().binId());
+    }
+
+    @Test
+    void knownBinIsReadThroughOnceAndThenServedFromMemory() {
+        bins.put("BIN-1", bin("BIN-1"));
+        BinStateStore store = store(60_000);
+
+        store.get("BIN-1");
+        store.get("BIN-1");
+
+        assertEquals(1, lookups);
+    }
+
+    @Test
+    void binOfAnotherNodeIsReadAgainAfterTheForeignTtl() throws InterruptedException {
+        String binId = binInPartition(1);
+        bins.put(binId, bin(binId));
+        BinStateStore store = new BinStateStore(null, repository(),
+                new IngestNode(new SimpleMeterRegistry(), "test", 2, "0"), new SimpleMeterRegistry(), 60_000, 10);
+
+        store.get(binId);
+        store.get(binId);
+        assertEquals(1, lookups);
+
+        Thread.sleep(30);
+        store.get(binId);
+        assertEquals(2, lookups);
+    }
+
+    @Test
+    void evictionDropsOnlyExpiredBinsOfOtherNodes() throws InterruptedException {
+        String own = binInPartition(0);
+        String foreign = binInPartition(1);
+        bins.put(own, bin(own));
+        bins.put(foreign, bin(foreign));
+        BinStateStore store = new BinStateStore(null, repository(),
+                new IngestNode(new SimpleMeterRegistry(), "test", 2, "0"), new SimpleMeterRegistry(), 60_000, 10);
+        store.get(own);
+        store.get(foreign);
+
+        Thread.sleep(30);
+        store.evictForeign();
+        store.get(own);
+        store.get(foreign);
+
+        assertEquals(3, lookups);
+    }
+
+    private BinStateStore store(long missingTtlMs) {
+        return new BinStateStore(null, repository(), new IngestNode(new SimpleMeterRegistry(), "test", 1, ""),
+                new SimpleMeterRegistry(), missingTtlMs, 5000);
+    }
+
+    private static String binInPartition(int partition) {
+        for (int i = 0; ; i++) {
+            if (IngestNode.partitionOf("BIN-" + i, 2) == partition) {
+                return "BIN-" + i;
+            }
+        }
+    }
+
+    // Only findById is used by the store
+    private BinInventoryRepository repository() {
+        return (BinInventoryRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{BinInventoryRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    lookups++;
+                    return Optional.ofNullable(bins.get((String) args[0]));
+                });
+    }
+
+    private static BinInventory bin(String binId) {
+        BinInventory bin = new BinInventory();
+        bin.setBinId(binId);
+        return bin;
+    }
+}
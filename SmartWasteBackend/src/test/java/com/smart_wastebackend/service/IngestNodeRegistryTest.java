@@ -0,0 +1,56 @@
+package com.smart_wastebackend.service;
+
+import com.smart_wastebackend.model.IngestNodeHeartbeat;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IngestNodeRegistryTest {
+
+    @Test
+    void completeEvenSplitIsBalanced() {
+        IngestNodeRegistry.Balance balance = IngestNodeRegistry.evaluate(List.of(
+                node("a", List.of(0, 1), 100),
+                node("b", List.of(2, 3), 100)), 4);
+
+        assertEquals(2, balance.liveNodes());
+        assertEquals(List.of(), balance.unowned());
+        assertEquals(List.of(), balance.overlapping());
+        assertEquals(1.0, balance.imbalance(), 1e-9);
+    }
+
+    @Test
+    void reportsUnownedAndOverlappingPartitions() {
+        IngestNodeRegistry.Balance balance = IngestNodeRegistry.evaluate(List.of(
+                node("a", List.of(0, 1), 0),
+                node("b", List.of(1, 2), 0)), 4);
+
+        assertEquals(List.of(3), balance.unowned());
+        assertEquals(List.of(1), balance.overlapping());
+    }
+
+    @Test
+    void imbalanceIsTheBusiestNodeOverTheMean() {
+        IngestNodeRegistry.Balance balance = IngestNodeRegistry.evaluate(List.of(
+                node("a", List.of(0), 300),
+                node("b", List.of(1), 100)), 2);
+
+        assertEquals(1.5, balance.imbalance(), 1e-9);
+    }
+
+    @Test
+    void idleNodesAreNotReportedAsUnbalanced() {
+        IngestNodeRegistry.Balance balance = IngestNodeRegistry.evaluate(List.of(
+                node("a", List.of(0), 0.5),
+                node("b", List.of(1), 0)), 2);
+
+        assertEquals(1.0, balance.imbalance(), 1e-9);
+    }
+
+    private static IngestNodeHeartbeat node(String id, List<Integer> partitions, double rate) {
+        return new IngestNodeHeartbeat(id, 4, partitions, rate, LocalDateTime.now());
+    }
+}
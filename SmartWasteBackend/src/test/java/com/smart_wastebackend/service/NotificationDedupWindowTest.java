@@ -0,0 +1,135 @@
+package com.smart_wastebackend.service;
+
+import com.mongodb.client.MongoClients;
+import com.smart_wastebackend.enums.NotificationType;
+import com.smart_wastebackend.model.Notification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.smart_wastebackend.enums.NotificationType.FILL_LEVEL_HIGH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationDedupWindowTest {
+
+    private final StoredNotifications mongo = new StoredNotifications();
+    private final NotificationDedupWindow window = window(Duration.ofHours(24));
+
+    @Test
+    void repeatedAlertIsSuppressedFromMemory() {
+        assertTrue(window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+        assertFalse(window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+
+        assertEquals(1, mongo.queries);
+    }
+
+    @Test
+    void keysAreIndependentPerBinTypeAndRecipient() {
+        assertTrue(window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+
+        assertTrue(window.tryAcquire("BIN-2", FILL_LEVEL_HIGH, "owner-1"));
+        assertTrue(window.tryAcquire("BIN-1", NotificationType.COLLECTION_DATE, "owner-1"));
+        assertTrue(window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-2"));
+    }
+
+    @Test
+    void unreadAlertStoredBeforeARestartSuppressesAndIsCached() {
+        mongo.stored.add(unread("BIN-1", "owner-1", LocalDateTime.now().minusHours(1)));
+
+        assertFalse(window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+        mongo.stored.clear();
+        assertFalse(window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+        assertEquals(1, mongo.queries);
+    }
+
+    @Test
+    void releaseReopensTheKey() {
+        assertTrue(window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+
+        window.release("BIN-1", FILL_LEVEL_HIGH, "owner-1");
+
+        assertTrue(window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+    }
+
+    @Test
+    void releasingARecipientReopensAllTheirKeys() {
+        window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1");
+        window.tryAcquire("BIN-2", FILL_LEVEL_HIGH, "owner-1");
+        window.tryAcquire("BIN-3", FILL_LEVEL_HIGH, "owner-2");
+
+        window.releaseRecipient("owner-1");
+
+        assertTrue(window.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+        assertTrue(window.tryAcquire("BIN-2", FILL_LEVEL_HIGH, "owner-1"));
+        assertFalse(window.tryAcquire("BIN-3", FILL_LEVEL_HIGH, "owner-2"));
+    }
+
+    @Test
+    void alertIsSentAgainOnceTheWindowHasPassed() throws InterruptedException {
+        NotificationDedupWindow shortWindow = window(Duration.ofMillis(20));
+        assertTrue(shortWindow.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+
+        Thread.sleep(40);
+
+        assertTrue(shortWindow.tryAcquire("BIN-1", FILL_LEVEL_HIGH, "owner-1"));
+    }
+
+    @Test
+    void batchClaimsEachBinOnceAndSkipsStoredUnreadAlerts() {
+        assertTrue(window.tryAcquire("BIN-3", FILL_LEVEL_HIGH, "owner-3"));
+        mongo.stored.add(unread("BIN-1", "owner-1", LocalDateTime.now().minusHours(1)));
+
+        List<FillLevelAlert> claimed = window.tryAcquireFillLevel(List.of(
+                new FillLevelAlert("BIN-1", "owner-1", 95),
+                new FillLevelAlert("BIN-2", "owner-2", 92),
+                new FillLevelAlert("BIN-2", "owner-2", 93),
+                new FillLevelAlert("BIN-3", "owner-3", 91)));
+
+        assertEquals(List.of(new FillLevelAlert("BIN-2", "owner-2", 92)), claimed);
+    }
+
+    private NotificationDedupWindow window(Duration length) {
+        return new NotificationDedupWindow(mongo, new SimpleMeterRegistry(), length);
+    }
+
+    private static Notification unread(String binId, String recipientId, LocalDateTime createdAt) {
+        return Notification.builder()
+                .notificationType(FILL_LEVEL_HIGH)
+                .binId(binId)
+                .recipientId(recipientId)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    // Answers every lookup with all stored notifications, whatever the query; the client is never connected
+    private static final class StoredNotifications extends MongoTemplate {
+
+        private final List<Notification> stored = new ArrayList<>();
+        private int queries;
+
+        private StoredNotifications() {
+            super(MongoClients.create("mongodb://localhost"), "test");
+        }
+
+        @Override
+        public <T> T findOne(Query query, Class<T> entityClass) {
+            List<T> found = find(query, entityClass);
+            return found.isEmpty() ? null : found.get(0);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> find(Query query, Class<T> entityClass) {
+            queries++;
+            return (List<T>) new ArrayList<>(stored);
+        }
+    }
+}
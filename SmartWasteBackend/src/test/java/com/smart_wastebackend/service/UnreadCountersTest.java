@@ -0,0 +1,119 @@
+package com.smart_wastebackend.service;
+
+import com.mongodb.client.MongoClients;
+import com.smart_wastebackend.dto.UnreadCountDTO;
+import com.smart_wastebackend.enums.UserRoleEnum;
+import com.smart_wastebackend.model.NotificationCounter;
+import com.smart_wastebackend.websocket.NotificationWebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnreadCountersTest {
+
+    private static final UserRoleEnum ADMIN = UserRoleEnum.ROLE_ADMIN;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CounterStore mongo = new CounterStore();
+    private final PushedFrames socket = new PushedFrames();
+    private final UnreadCounters counters = new UnreadCounters(mongo, socket, meterRegistry, 60_000);
+
+    @Test
+    void newCountIsCachedAndPushed() {
+        counters.publish(new UnreadCounters.Change("user-1", ADMIN, 1, 4L));
+
+        assertFrame(4, 1);
+        assertEquals(4, counters.get("user-1", ADMIN));
+        assertEquals(0, mongo.counts);
+    }
+
+    @Test
+    void negativeCountIsResetFromTheNotifications() {
+        mongo.unreadNotifications = 3;
+        mongo.storedCounter = -1L;
+
+        counters.publish(new UnreadCounters.Change("user-1", ADMIN, -1, -1L));
+
+        assertFrame(3, -1);
+        assertEquals(3L, mongo.storedCounter);
+        assertEquals(1.0, meterRegistry.get("smartwaste.notification.unread.corrected").counter().count(), 0);
+        assertEquals(3, counters.get("user-1", ADMIN));
+        assertEquals(1, mongo.counts);
+    }
+
+    @Test
+    void missingCounterIsSeededFromTheNotifications() {
+        mongo.unreadNotifications = 5;
+
+        counters.publish(new UnreadCounters.Change("user-1", ADMIN, 1, null));
+
+        assertFrame(5, 1);
+        assertEquals(5L, mongo.storedCounter);
+        assertEquals(0.0, meterRegistry.get("smartwaste.notification.unread.corrected").counter().count(), 0);
+    }
+
+    @Test
+    void noChangeIsNotPushed() {
+        counters.publish(new UnreadCounters.Change("user-1", ADMIN, 0, null));
+
+        assertTrue(socket.frames.isEmpty());
+        assertEquals(0, mongo.counts);
+    }
+
+    private void assertFrame(long unread, long delta) {
+        assertEquals(1, socket.frames.size());
+        UnreadCountDTO frame = socket.frames.get(0);
+        assertEquals(unread, frame.getUnread());
+        assertEquals(delta, frame.getDelta());
+    }
+
+    // One counter document and a fixed count of unread notifications; the client is never connected
+    private static final class CounterStore extends MongoTemplate {
+
+        private Long storedCounter;
+        private long unreadNotifications;
+        private int counts;
+
+        private CounterStore() {
+            super(MongoClients.create("mongodb://localhost"), "test");
+        }
+
+        @Override
+        public long count(Query query, Class<?> entityClass) {
+            counts++;
+            return unreadNotifications;
+        }
+
+        // Only the reseed's $set of "unread" is issued in these tests
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T findAndModify(Query query, UpdateDefinition update, FindAndModifyOptions options, Class<T> entityClass) {
+            NotificationCounter previous = storedCounter == null
+                    ? null
+                    : new NotificationCounter("user-1:" + ADMIN, "user-1", ADMIN, storedCounter);
+            storedCounter = ((Number) update.getUpdateObject().get("$set", Document.class).get("unread")).longValue();
+            return (T) previous;
+        }
+    }
+
+    private static final class PushedFrames extends NotificationWebSocketHandler {
+
+        private final List<UnreadCountDTO> frames = new ArrayList<>();
+
+        @Override
+        public boolean sendToUser(String userId, Object frame) {
+            frames.add((UnreadCountDTO) frame);
+            return true;
+        }
+    }
+}